@@ -0,0 +1,102 @@
+package graph;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks of building and querying graphs: adding all the vertices
+ *  and edges of a SyntheticGraph, enumerating the successors of every
+ *  vertex, and testing random pairs of vertices for adjacency, of which
+ *  about half are edges.
+ *  @author Yuan Xie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphBenchmark {
+
+    /** Shape of the graph (see SyntheticGraph). */
+    @Param({ "grid", "dag", "powerlaw" })
+    public String shape;
+
+    /** Approximate number of vertices. */
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    /** Generate the graph, build it once, and choose the pairs for
+     *  contains. */
+    @Setup
+    public void setup() {
+        _source = new SyntheticGraph(shape, size, SEED);
+        _graph = _source.build();
+        Random rand = new Random(SEED);
+        _queries = new int[2 * QUERIES];
+        for (int k = 0; k < _queries.length; k += 2) {
+            if (k % 4 == 0) {
+                int e = rand.nextInt(_source.edgeCount());
+                _queries[k] = _source.from(e);
+                _queries[k + 1] = _source.to(e);
+            } else {
+                _queries[k] = 1 + rand.nextInt(_source.vertexCount());
+                _queries[k + 1] = 1 + rand.nextInt(_source.vertexCount());
+            }
+        }
+    }
+
+    /** Build the whole graph with GraphObj.add. */
+    @Benchmark
+    public Graph add() {
+        return _source.build();
+    }
+
+    /** Visit the successors of every vertex. */
+    @Benchmark
+    public void successors(Blackhole sink) {
+        int n = _source.vertexCount();
+        for (int v = 1; v <= n; v += 1) {
+            for (int w : _graph.successors(v)) {
+                sink.consume(w);
+            }
+        }
+    }
+
+    /** Test QUERIES pairs of vertices for adjacency. */
+    @Benchmark
+    public int contains() {
+        int found = 0;
+        for (int k = 0; k < _queries.length; k += 2) {
+            if (_graph.contains(_queries[k], _queries[k + 1])) {
+                found += 1;
+            }
+        }
+        return found;
+    }
+
+    /** Number of pairs tested by each call of contains. */
+    private static final int QUERIES = 1000;
+    /** Random seed for the graph and queries. */
+    private static final long SEED = 61;
+
+    /** The generated graph. */
+    private SyntheticGraph _source;
+    /** The graph built from _source. */
+    private Graph _graph;
+    /** The pairs tested by contains: _queries[2K] and _queries[2K + 1]
+     *  are the ends of pair #K. */
+    private int[] _queries;
+}
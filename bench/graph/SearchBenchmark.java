@@ -0,0 +1,128 @@
+package graph;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of searching graphs: depth- and breadth-first traversals
+ *  from vertex 1, and shortest paths from vertex 1 both to all vertices
+ *  and to the last vertex, weighting edges as given by a SyntheticGraph.
+ *  Each traversal starts afresh on a cleared Traversal, so that the
+ *  search itself is measured rather than its setup.
+ *  @author Yuan Xie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+
+    /** Shape of the graph (see SyntheticGraph). */
+    @Param({ "grid", "dag", "powerlaw" })
+    public String shape;
+
+    /** Approximate number of vertices. */
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    /** Generate and build the graph and its traversals. */
+    @Setup
+    public void setup() {
+        SyntheticGraph source = new SyntheticGraph(shape, size, SEED);
+        _graph = source.build();
+        _weights = source.weights(_graph);
+        _last = source.vertexCount();
+        _depthFirst = new DepthFirstTraversal(_graph) {
+            @Override
+            protected boolean visit(int v) {
+                _visits += 1;
+                return true;
+            }
+        };
+        _breadthFirst = new BreadthFirstTraversal(_graph) {
+            @Override
+            protected boolean visit(int v) {
+                _visits += 1;
+                return true;
+            }
+        };
+    }
+
+    /** Traverse depth first from vertex 1, returning the number of
+     *  vertices visited. */
+    @Benchmark
+    public int depthFirst() {
+        return traverse(_depthFirst);
+    }
+
+    /** Traverse breadth first from vertex 1, returning the number of
+     *  vertices visited. */
+    @Benchmark
+    public int breadthFirst() {
+        return traverse(_breadthFirst);
+    }
+
+    /** Find shortest paths from vertex 1 to all others. */
+    @Benchmark
+    public double shortestPathsToAll() {
+        ShortestPaths paths = new Weighted(0);
+        paths.setPaths();
+        return paths.getWeight(_last);
+    }
+
+    /** Find a shortest path from vertex 1 to the last vertex. */
+    @Benchmark
+    public double shortestPathsToLast() {
+        ShortestPaths paths = new Weighted(_last);
+        paths.setPaths();
+        return paths.getWeight(_last);
+    }
+
+    /** Run TRAVERSAL from vertex 1 and return the number of visits. */
+    private int traverse(Traversal traversal) {
+        _visits = 0;
+        traversal.clear();
+        traversal.traverse(1);
+        return _visits;
+    }
+
+    /** Shortest paths from vertex 1 in _graph, weighted by _weights. */
+    private class Weighted extends SimpleShortestPaths {
+        /** Shortest paths from vertex 1 to DEST, or to all vertices if
+         *  DEST is 0. */
+        Weighted(int dest) {
+            super(_graph, 1, dest);
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            return _weights[_G.edgeId(u, v)];
+        }
+    }
+
+    /** Random seed for the graph. */
+    private static final long SEED = 61;
+
+    /** The graph searched. */
+    private Graph _graph;
+    /** _weights[E] is the weight of the edge whose id is E. */
+    private double[] _weights;
+    /** The last vertex of _graph. */
+    private int _last;
+    /** Traversals of _graph that count their visits in _visits. */
+    private Traversal _depthFirst, _breadthFirst;
+    /** Number of vertices visited by the current traversal. */
+    private int _visits;
+}
@@ -0,0 +1,204 @@
+package graph;
+
+import java.util.Random;
+
+/** A randomly generated graph for benchmarks, kept as a list of weighted
+ *  edges from which Graphs may be built.  There are three shapes:
+ *      grid      a square road network, in which each vertex has roads in
+ *                both directions to its neighbors on the right and below,
+ *                with lengths near 1;
+ *      dag       a random directed acyclic graph, in which each vertex has
+ *                edges from about four lower-numbered vertices;
+ *      powerlaw  an undirected graph grown by preferential attachment,
+ *                in which each new vertex is joined to three existing
+ *                ones chosen in proportion to their degrees, so that a
+ *                few vertices have very high degree.
+ *  Vertices are numbered 1 .. vertexCount(), in the order in which build
+ *  adds them.  The same SHAPE, SIZE, and SEED always give the same graph.
+ *  @author Yuan Xie.
+ */
+class SyntheticGraph {
+
+    /** A graph of shape SHAPE (grid, dag, or powerlaw) with about SIZE
+     *  vertices, generated from the random seed SEED. */
+    SyntheticGraph(String shape, int size, long seed) {
+        Random rand = new Random(seed);
+        switch (shape) {
+        case "grid":
+            grid((int) Math.ceil(Math.sqrt(size)), rand);
+            break;
+        case "dag":
+            dag(size, rand);
+            break;
+        case "powerlaw":
+            powerLaw(size, rand);
+            break;
+        default:
+            throw new IllegalArgumentException("unknown graph shape: "
+                                               + shape);
+        }
+    }
+
+    /** Returns true iff I am directed. */
+    boolean isDirected() {
+        return _directed;
+    }
+
+    /** Returns my number of vertices. */
+    int vertexCount() {
+        return _vertices;
+    }
+
+    /** Returns my number of edges. */
+    int edgeCount() {
+        return _edges;
+    }
+
+    /** Returns the vertex that edge #E leaves. */
+    int from(int e) {
+        return _from[e];
+    }
+
+    /** Returns the vertex that edge #E enters. */
+    int to(int e) {
+        return _to[e];
+    }
+
+    /** Returns the weight of edge #E. */
+    double weight(int e) {
+        return _weight[e];
+    }
+
+    /** Returns a new Graph with my vertices and edges, added in order. */
+    GraphObj build() {
+        GraphObj G = _directed ? new DirectedGraph() : new UndirectedGraph();
+        for (int v = 0; v < _vertices; v += 1) {
+            G.add();
+        }
+        for (int e = 0; e < _edges; e += 1) {
+            G.add(_from[e], _to[e]);
+        }
+        return G;
+    }
+
+    /** Returns an array giving, for each edge id of G, the weight of that
+     *  edge, where G is a graph made by build(). */
+    double[] weights(Graph G) {
+        double[] weights = new double[G.edgeSize() + 1];
+        for (int e = 0; e < _edges; e += 1) {
+            weights[G.edgeId(_from[e], _to[e])] = _weight[e];
+        }
+        return weights;
+    }
+
+    /** Generate a SIDE x SIDE grid, using RAND for the road lengths. */
+    private void grid(int side, Random rand) {
+        _directed = true;
+        _vertices = side * side;
+        allocate(4 * side * (side - 1));
+        for (int r = 0; r < side; r += 1) {
+            for (int c = 0; c < side; c += 1) {
+                int v = 1 + r * side + c;
+                if (c + 1 < side) {
+                    road(v, v + 1, 1 + 0.5 * rand.nextDouble());
+                }
+                if (r + 1 < side) {
+                    road(v, v + side, 1 + 0.5 * rand.nextDouble());
+                }
+            }
+        }
+    }
+
+    /** Generate a random acyclic graph with N vertices, using RAND. */
+    private void dag(int n, Random rand) {
+        _directed = true;
+        _vertices = n;
+        allocate(DAG_DEGREE * n);
+        for (int v = 2; v <= n; v += 1) {
+            for (int k = 0; k < DAG_DEGREE; k += 1) {
+                int u = 1 + rand.nextInt(v - 1);
+                if (k == 0 || !contains(u, v)) {
+                    edge(u, v, 1 + rand.nextDouble());
+                }
+            }
+        }
+    }
+
+    /** Generate a preferential-attachment graph with N vertices, using
+     *  RAND.  A new vertex's own edge ends become eligible for choice
+     *  only once all its edges are added, so that it is never joined to
+     *  itself. */
+    private void powerLaw(int n, Random rand) {
+        _directed = false;
+        _vertices = n;
+        allocate(ATTACHMENTS * n);
+        int[] ends = new int[2 * ATTACHMENTS * n];
+        int numEnds = 0;
+        for (int v = 2; v <= n; v += 1) {
+            int m = Math.min(ATTACHMENTS, v - 1);
+            int added = 0;
+            for (int k = 0; k < m; k += 1) {
+                int u = numEnds == 0 ? 1 : ends[rand.nextInt(numEnds)];
+                if (!contains(u, v)) {
+                    edge(u, v, 1 + rand.nextDouble());
+                    ends[numEnds] = u;
+                    numEnds += 1;
+                    added += 1;
+                }
+            }
+            for (int k = 0; k < added; k += 1) {
+                ends[numEnds] = v;
+                numEnds += 1;
+            }
+        }
+    }
+
+    /** Make room for N edges. */
+    private void allocate(int n) {
+        _from = new int[n];
+        _to = new int[n];
+        _weight = new double[n];
+    }
+
+    /** Add a road of length W between U and V, in both directions. */
+    private void road(int u, int v, double w) {
+        edge(u, v, w);
+        edge(v, u, w);
+    }
+
+    /** Add an edge from U to V of weight W. */
+    private void edge(int u, int v, double w) {
+        _from[_edges] = u;
+        _to[_edges] = v;
+        _weight[_edges] = w;
+        _edges += 1;
+    }
+
+    /** Returns true iff one of the last few edges goes from U to V, which
+     *  is where a duplicate made by dag or powerLaw would be. */
+    private boolean contains(int u, int v) {
+        for (int e = Math.max(0, _edges - ATTACHMENTS - DAG_DEGREE);
+             e < _edges; e += 1) {
+            if (_from[e] == u && _to[e] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Number of edges into each vertex of a dag. */
+    private static final int DAG_DEGREE = 4;
+    /** Number of existing vertices to which each new vertex of a powerlaw
+     *  graph is joined. */
+    private static final int ATTACHMENTS = 3;
+
+    /** True iff I am directed. */
+    private boolean _directed;
+    /** Number of vertices. */
+    private int _vertices;
+    /** Number of edges. */
+    private int _edges;
+    /** Edge #E goes from _from[E] to _to[E] with weight _weight[E]. */
+    private int[] _from, _to;
+    private double[] _weight;
+}
@@ -0,0 +1,119 @@
+package make;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of Maker.build on generated makefiles.  Target T<I>
+ *  depends on T<2I+1> and T<2I+2>, when those exist, and on two more
+ *  randomly chosen targets numbered above I, so that building T0 reaches
+ *  every target.  The targets without dependencies, and a random half of
+ *  the others, exist according to the file information, with random
+ *  ages, so that part of the graph is out of date.  Since a build brings
+ *  its targets up to date, each one is made on a Maker freshly read from
+ *  the files, which is not counted in the time.  The commands, which
+ *  Maker prints on the standard output, are discarded.
+ *  @author Yuan Xie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MakeBenchmark {
+
+    /** Number of targets. */
+    @Param({ "1000", "10000", "100000" })
+    public int size;
+
+    /** Write the makefile and file information, and stop output. */
+    @Setup
+    public void setup() throws IOException {
+        Random rand = new Random(SEED);
+        _makefile = File.createTempFile("bench", ".mk");
+        _fileInfo = File.createTempFile("bench", ".info");
+        _makefile.deleteOnExit();
+        _fileInfo.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(_makefile)) {
+            for (int i = 0; i < size; i += 1) {
+                out.printf("T%d:", i);
+                for (int j = 2 * i + 1; j <= 2 * i + 2 && j < size; j += 1) {
+                    out.printf(" T%d", j);
+                }
+                for (int k = 0; k < 2 && i + 1 < size; k += 1) {
+                    out.printf(" T%d", i + 1 + rand.nextInt(size - i - 1));
+                }
+                out.printf("%n\tcc -o T%d%n", i);
+            }
+        }
+        try (PrintWriter out = new PrintWriter(_fileInfo)) {
+            out.println(2 * size);
+            for (int i = 0; i < size; i += 1) {
+                if (2 * i + 1 >= size || rand.nextBoolean()) {
+                    out.printf("T%d %d%n", i, rand.nextInt(2 * size));
+                }
+            }
+        }
+        _stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    /** Restore output. */
+    @TearDown
+    public void tearDown() {
+        System.setOut(_stdout);
+    }
+
+    /** Read a fresh Maker for the next build. */
+    @Setup(Level.Invocation)
+    public void readMaker() {
+        _maker = new Maker();
+        _maker.readFileAges(_fileInfo.getPath());
+        _maker.readMakefile(_makefile.getPath());
+    }
+
+    /** Build T0. */
+    @Benchmark
+    public Maker build() {
+        _maker.build("T0");
+        return _maker;
+    }
+
+    /** Random seed for the makefile and file information. */
+    private static final long SEED = 61;
+
+    /** The generated makefile and file information. */
+    private File _makefile, _fileInfo;
+    /** The standard output, while it is replaced. */
+    private PrintStream _stdout;
+    /** The Maker to build next. */
+    private Maker _maker;
+}
@@ -0,0 +1,121 @@
+package trip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of Trip.makeTrip on a generated square grid of locations,
+ *  P<X>_<Y>, joined by two-way roads of random lengths to their neighbors.
+ *  Each call plans a trip between the next of a fixed, random sequence of
+ *  pairs of locations, either searching the map directly or using a
+ *  contraction hierarchy built beforehand.  The reports are discarded.
+ *  @author Yuan Xie.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TripBenchmark {
+
+    /** Number of locations along each side of the grid. */
+    @Param({ "30", "100", "300" })
+    public int side;
+
+    /** How routes are found: "plain" or "hierarchy". */
+    @Param({ "plain", "hierarchy" })
+    public String search;
+
+    /** Write and read the map, and choose the trips. */
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        Random rand = new Random(SEED);
+        File map = File.createTempFile("bench", ".map");
+        map.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(map)) {
+            for (int x = 0; x < side; x += 1) {
+                for (int y = 0; y < side; y += 1) {
+                    out.printf("L P%d_%d %d %d%n", x, y, x, y);
+                }
+            }
+            for (int x = 0; x < side; x += 1) {
+                for (int y = 0; y < side; y += 1) {
+                    if (x + 1 < side) {
+                        out.printf("R P%d_%d Rd%d %.3f WE P%d_%d%n", x, y, y,
+                                   1 + 0.5 * rand.nextDouble(), x + 1, y);
+                    }
+                    if (y + 1 < side) {
+                        out.printf("R P%d_%d Av%d %.3f SN P%d_%d%n", x, y, x,
+                                   1 + 0.5 * rand.nextDouble(), x, y + 1);
+                    }
+                }
+            }
+        }
+        _trip = new Trip();
+        _trip.readMap(map.getPath());
+        if (search.equals("hierarchy")) {
+            _trip.useHierarchy();
+        }
+        _trips = new List[TRIPS];
+        for (int k = 0; k < TRIPS; k += 1) {
+            _trips[k] = Arrays.asList(location(rand), location(rand));
+        }
+        _out = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    /** Plan the next trip. */
+    @Benchmark
+    public void makeTrip() {
+        _trip.makeTrip(_trips[_next], _out);
+        _next = (_next + 1) % TRIPS;
+    }
+
+    /** Returns the name of a random location, chosen using RAND. */
+    private String location(Random rand) {
+        return String.format("P%d_%d", rand.nextInt(side),
+                             rand.nextInt(side));
+    }
+
+    /** Number of distinct trips planned. */
+    private static final int TRIPS = 256;
+    /** Random seed for the map and trips. */
+    private static final long SEED = 61;
+
+    /** The map. */
+    private Trip _trip;
+    /** The trips planned, in order. */
+    private List<String>[] _trips;
+    /** Index in _trips of the next trip. */
+    private int _next;
+    /** Where reports go. */
+    private PrintStream _out;
+}
@@ -0,0 +1,604 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** A contraction hierarchy over an edge-weighted graph, for answering
+ *  large numbers of point-to-point shortest-path queries on a graph that
+ *  does not change.
+ *
+ *  Preprocessing (contract) removes the vertices one at a time, least
+ *  important first, adding a shortcut edge (U, W) whenever removing V
+ *  would destroy the only shortest path U -> V -> W among the remaining
+ *  vertices.  The order of removal ranks the vertices.  A query then
+ *  runs two small Dijkstra searches, forward from the source and
+ *  backward from the destination, each following only edges that lead to
+ *  higher-ranked vertices; the two meet at the highest-ranked vertex of a
+ *  shortest path.  Shortcuts remember the vertex they bypass, so the
+ *  paths returned consist only of edges of the original graph.
+ *
+ *  The client supplies the edge weights by overriding getWeight.  The
+ *  graph must not change after contract is called.  Queries may be made
+ *  concurrently from several threads.
+ *  @author Yuan Xie.
+ */
+public abstract class ContractionHierarchy {
+
+    /** A hierarchy over G, which must be contracted before use. */
+    public ContractionHierarchy(Graph G) {
+        _G = G;
+    }
+
+    /** Returns the weight of edge (U, V) in the graph, which must be
+     *  non-negative, or positive infinity if there is no such edge. */
+    protected abstract double getWeight(int u, int v);
+
+    /** Compute the hierarchy.  Must be called before path or distance,
+     *  and again after the graph changes. */
+    public void contract() {
+        _shortcuts = 0;
+        int n = _G.maxVertex();
+        Arcs[] out = new Arcs[n + 1];
+        Arcs[] in = new Arcs[n + 1];
+        for (int v : _G.vertices()) {
+            out[v] = new Arcs();
+            in[v] = new Arcs();
+        }
+        for (int v : _G.vertices()) {
+            for (int w : _G.successors(v)) {
+                double c = getWeight(v, w);
+                if (v != w && c < Double.POSITIVE_INFINITY) {
+                    out[v].add(w, c, 0);
+                    in[w].add(v, c, 0);
+                }
+            }
+        }
+
+        int[] rank = new Contractor(out, in, n).run();
+
+        _upStart = new int[n + 2];
+        _downStart = new int[n + 2];
+        for (int v = 1; v <= n; v += 1) {
+            if (out[v] != null) {
+                _upStart[v + 1] = out[v].countRankedAbove(rank, rank[v]);
+                _downStart[v + 1] = in[v].countRankedAbove(rank, rank[v]);
+            }
+        }
+        for (int v = 1; v <= n + 1; v += 1) {
+            _upStart[v] += _upStart[v - 1];
+            _downStart[v] += _downStart[v - 1];
+        }
+        _upTo = new int[_upStart[n + 1]];
+        _upWeight = new double[_upTo.length];
+        _upMiddle = new int[_upTo.length];
+        _downTo = new int[_downStart[n + 1]];
+        _downWeight = new double[_downTo.length];
+        _downMiddle = new int[_downTo.length];
+        for (int v = 1; v <= n; v += 1) {
+            if (out[v] != null) {
+                out[v].copyRankedAbove(rank, rank[v], _upStart[v],
+                                       _upTo, _upWeight, _upMiddle);
+                in[v].copyRankedAbove(rank, rank[v], _downStart[v],
+                                      _downTo, _downWeight, _downMiddle);
+            }
+        }
+        _rank = rank;
+        _maxVertex = n;
+    }
+
+    /** Returns the number of shortcut edges added by the last call to
+     *  contract. */
+    public int shortcuts() {
+        return _shortcuts;
+    }
+
+    /** Returns the weight of a shortest path from SOURCE to DEST, or
+     *  positive infinity if there is none. */
+    public double distance(int source, int dest) {
+        Query query = startQuery(source, dest);
+        return query._best;
+    }
+
+    /** Returns a list of vertices starting at SOURCE and ending at DEST
+     *  that represents a shortest path from SOURCE to DEST in the original
+     *  graph, or null if there is no such path. */
+    public List<Integer> path(int source, int dest) {
+        Query query = startQuery(source, dest);
+        if (query._meeting == 0) {
+            return null;
+        }
+        IntList arcs = new IntList();
+        for (int v = query._meeting; v != source;
+             v = query._forwardPred[v]) {
+            arcs.add(query._forwardMiddle[v]);
+            arcs.add(v);
+            arcs.add(query._forwardPred[v]);
+        }
+        ArrayList<Integer> result = new ArrayList<>();
+        result.add(source);
+        IntList pending = new IntList();
+        for (int k = arcs.size() - 3; k >= 0; k -= 3) {
+            unpack(arcs.get(k + 2), arcs.get(k + 1), arcs.get(k), pending,
+                   result);
+        }
+        for (int v = query._meeting; v != dest;
+             v = query._backwardPred[v]) {
+            unpack(v, query._backwardPred[v], query._backwardMiddle[v],
+                   pending, result);
+        }
+        return result;
+    }
+
+    /** Check that I am ready for a query from SOURCE to DEST, run it on
+     *  the calling thread's query state, and return that state. */
+    private Query startQuery(int source, int dest) {
+        if (_rank == null) {
+            throw new IllegalStateException("hierarchy not contracted");
+        }
+        _G.checkMyVertex(source);
+        _G.checkMyVertex(dest);
+        if (source > _maxVertex || dest > _maxVertex) {
+            throw new IllegalStateException("vertex added since hierarchy "
+                                            + "was contracted");
+        }
+        Query query = _queries.get();
+        if (query._size != _maxVertex) {
+            query = new Query();
+            _queries.set(query);
+        }
+        query.run(source, dest);
+        return query;
+    }
+
+    /** Append to RESULT the vertices after U along the original edges that
+     *  make up edge (U, V) of the hierarchy, which bypasses MIDDLE (0 if
+     *  it is an original edge).  PENDING is scratch space. */
+    private void unpack(int u, int v, int middle, IntList pending,
+                        List<Integer> result) {
+        pending.clear();
+        pending.add(u);
+        pending.add(v);
+        pending.add(middle);
+        while (!pending.isEmpty()) {
+            int n = pending.size();
+            int a = pending.get(n - 3), b = pending.get(n - 2),
+                m = pending.get(n - 1);
+            pending.truncate(n - 3);
+            if (m == 0) {
+                result.add(b);
+            } else {
+                pending.add(m);
+                pending.add(b);
+                pending.add(middle(m, b));
+                pending.add(a);
+                pending.add(m);
+                pending.add(middle(a, m));
+            }
+        }
+    }
+
+    /** Returns the vertex bypassed by hierarchy edge (U, V), or 0 if it
+     *  is an original edge.  Assumes (U, V) is in the hierarchy. */
+    private int middle(int u, int v) {
+        if (_rank[v] > _rank[u]) {
+            for (int k = _upStart[u]; k < _upStart[u + 1]; k += 1) {
+                if (_upTo[k] == v) {
+                    return _upMiddle[k];
+                }
+            }
+        } else {
+            for (int k = _downStart[v]; k < _downStart[v + 1]; k += 1) {
+                if (_downTo[k] == u) {
+                    return _downMiddle[k];
+                }
+            }
+        }
+        throw new IllegalStateException("missing hierarchy edge");
+    }
+
+    /** The graph being searched. */
+    protected final Graph _G;
+
+    /** _rank[V] is the position of V in the contraction order (from 1),
+     *  or 0 if V is not a vertex.  Null until contract is called. */
+    private int[] _rank;
+    /** Largest vertex number at the time of contraction. */
+    private int _maxVertex;
+    /** Number of shortcuts added by contract. */
+    private int _shortcuts;
+
+    /** Upward edges (V, _upTo[K]) for _upStart[V] <= K < _upStart[V+1],
+     *  with weights _upWeight[K], bypassing _upMiddle[K] (0 for an
+     *  original edge). */
+    private int[] _upStart, _upTo, _upMiddle;
+    /** Weights of upward edges. */
+    private double[] _upWeight;
+    /** Edges (_downTo[K], V) for _downStart[V] <= K < _downStart[V+1]
+     *  that enter V from higher-ranked vertices, with weights
+     *  _downWeight[K], bypassing _downMiddle[K]. */
+    private int[] _downStart, _downTo, _downMiddle;
+    /** Weights of downward edges. */
+    private double[] _downWeight;
+
+    /** Per-thread query state, which is replaced when its size no longer
+     *  matches the hierarchy. */
+    private final ThreadLocal<Query> _queries =
+        ThreadLocal.withInitial(Query::new);
+
+    /** Contracts the overlay graph given by adjacency lists OUT and IN
+     *  during preprocessing. */
+    private class Contractor {
+        /** A Contractor for the overlay graph with outgoing and incoming
+         *  arcs OUT and IN over vertices up to N. */
+        Contractor(Arcs[] out, Arcs[] in, int n) {
+            _out = out;
+            _in = in;
+            _contracted = new boolean[n + 1];
+            _deleted = new int[n + 1];
+            _dist = new double[n + 1];
+            Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+            _touched = new IntList();
+            _fringe = new VertexHeap(n);
+        }
+
+        /** Contract all vertices and return their ranks. */
+        int[] run() {
+            int[] rank = new int[_contracted.length];
+            VertexHeap queue = new VertexHeap(_contracted.length - 1);
+            for (int v : _G.vertices()) {
+                queue.update(v, priority(v));
+            }
+            int next = 1;
+            while (!queue.isEmpty()) {
+                int v = queue.removeMin();
+                double p = priority(v);
+                if (!queue.isEmpty() && p > queue.minPriority()) {
+                    queue.update(v, p);
+                    continue;
+                }
+                _shortcuts += contract(v, false);
+                _contracted[v] = true;
+                rank[v] = next;
+                next += 1;
+                for (int k = 0; k < _out[v]._size; k += 1) {
+                    _in[_out[v]._to[k]].remove(v);
+                }
+                for (int k = 0; k < _in[v]._size; k += 1) {
+                    _out[_in[v]._to[k]].remove(v);
+                }
+                updateNeighbors(_out[v], queue);
+                updateNeighbors(_in[v], queue);
+            }
+            return rank;
+        }
+
+        /** Note the contraction of a vertex adjacent to the ends of ARCS,
+         *  and update their priorities in QUEUE. */
+        private void updateNeighbors(Arcs arcs, VertexHeap queue) {
+            for (int k = 0; k < arcs._size; k += 1) {
+                int w = arcs._to[k];
+                _deleted[w] += 1;
+                queue.update(w, priority(w));
+            }
+        }
+
+        /** Returns the importance of V: the number of shortcuts its
+         *  contraction would add, less the number of arcs it would remove,
+         *  plus the number of its neighbors already contracted. */
+        private double priority(int v) {
+            int removed = _out[v]._size + _in[v]._size;
+            return contract(v, true) - removed + _deleted[v];
+        }
+
+        /** Returns the number of shortcuts needed to contract V, and unless
+         *  SIMULATE, add them. */
+        private int contract(int v, boolean simulate) {
+            Arcs ins = _in[v], outs = _out[v];
+            int added = 0;
+            for (int i = 0; i < ins._size; i += 1) {
+                int u = ins._to[i];
+                double limit = -1.0;
+                for (int j = 0; j < outs._size; j += 1) {
+                    int w = outs._to[j];
+                    if (w != u) {
+                        limit = Math.max(limit, ins._weight[i]
+                                         + outs._weight[j]);
+                    }
+                }
+                if (limit < 0) {
+                    continue;
+                }
+                witnessSearch(u, v, limit);
+                for (int j = 0; j < outs._size; j += 1) {
+                    int w = outs._to[j];
+                    double via = ins._weight[i] + outs._weight[j];
+                    if (w != u && _dist[w] > via) {
+                        added += 1;
+                        if (!simulate) {
+                            addShortcut(u, w, via, v);
+                        }
+                    }
+                }
+            }
+            return added;
+        }
+
+        /** Add or shorten the arc (U, W) to weight VIA, bypassing V. */
+        private void addShortcut(int u, int w, double via, int v) {
+            int k = _out[u].find(w);
+            if (k < 0) {
+                _out[u].add(w, via, v);
+                _in[w].add(u, via, v);
+            } else if (via < _out[u]._weight[k]) {
+                _out[u].set(k, via, v);
+                _in[w].set(_in[w].find(u), via, v);
+            }
+        }
+
+        /** Set _dist to the weights of shortest paths from SOURCE among the
+         *  uncontracted vertices other than AVOID, as far as weight LIMIT
+         *  or WITNESS_LIMIT settled vertices.  Weights of vertices not
+         *  reached are infinite. */
+        private void witnessSearch(int source, int avoid, double limit) {
+            for (int k = 0; k < _touched.size(); k += 1) {
+                _dist[_touched.get(k)] = Double.POSITIVE_INFINITY;
+            }
+            _touched.clear();
+            _fringe.clear();
+            _dist[source] = 0.0;
+            _touched.add(source);
+            _fringe.update(source, 0.0);
+            int settled = 0;
+            while (!_fringe.isEmpty() && settled < WITNESS_LIMIT) {
+                if (_fringe.minPriority() > limit) {
+                    break;
+                }
+                int x = _fringe.removeMin();
+                settled += 1;
+                Arcs arcs = _out[x];
+                for (int k = 0; k < arcs._size; k += 1) {
+                    int y = arcs._to[k];
+                    double d = _dist[x] + arcs._weight[k];
+                    if (y != avoid && d <= limit && d < _dist[y]) {
+                        if (_dist[y] == Double.POSITIVE_INFINITY) {
+                            _touched.add(y);
+                        }
+                        _dist[y] = d;
+                        _fringe.update(y, d);
+                    }
+                }
+            }
+        }
+
+        /** Outgoing and incoming arcs of the overlay graph.  Once a vertex
+         *  is contracted, its arcs are removed from the lists of its
+         *  uncontracted neighbors, so that the lists of an uncontracted
+         *  vertex hold only arcs to other uncontracted vertices, and the
+         *  lists of a contracted vertex hold exactly its arcs to
+         *  higher-ranked vertices. */
+        private final Arcs[] _out, _in;
+        /** _contracted[V] is true iff V has been contracted. */
+        private final boolean[] _contracted;
+        /** _deleted[V] is the number of contracted neighbors of V. */
+        private final int[] _deleted;
+        /** Witness search weights. */
+        private final double[] _dist;
+        /** Vertices whose _dist is finite. */
+        private final IntList _touched;
+        /** Witness search fringe. */
+        private final VertexHeap _fringe;
+    }
+
+    /** The state of one bidirectional upward query. */
+    private class Query {
+        /** Query state for the current hierarchy. */
+        Query() {
+            int n = _maxVertex;
+            _size = n;
+            _forwardDist = new double[n + 1];
+            _backwardDist = new double[n + 1];
+            _forwardPred = new int[n + 1];
+            _backwardPred = new int[n + 1];
+            _forwardMiddle = new int[n + 1];
+            _backwardMiddle = new int[n + 1];
+            _forwardStamp = new int[n + 1];
+            _backwardStamp = new int[n + 1];
+            _forward = new VertexHeap(n);
+            _backward = new VertexHeap(n);
+        }
+
+        /** Search from SOURCE to DEST, setting _best and _meeting. */
+        void run(int source, int dest) {
+            _stamp += 1;
+            _forward.clear();
+            _backward.clear();
+            _best = Double.POSITIVE_INFINITY;
+            _meeting = 0;
+            reach(true, source, 0.0, 0, 0);
+            reach(false, dest, 0.0, 0, 0);
+            _forward.update(source, 0.0);
+            _backward.update(dest, 0.0);
+
+            while (true) {
+                boolean forward = !_forward.isEmpty()
+                    && _forward.minPriority() < _best;
+                boolean backward = !_backward.isEmpty()
+                    && _backward.minPriority() < _best;
+                if (forward && backward) {
+                    forward =
+                        _forward.minPriority() <= _backward.minPriority();
+                } else if (!forward && !backward) {
+                    break;
+                }
+                if (forward) {
+                    settle(true, _forward.removeMin(), _upStart, _upTo,
+                           _upWeight, _upMiddle);
+                } else {
+                    settle(false, _backward.removeMin(), _downStart,
+                           _downTo, _downWeight, _downMiddle);
+                }
+            }
+        }
+
+        /** Settle V in the forward search if FORWARD, and otherwise in the
+         *  backward search, relaxing the edges to V's higher-ranked
+         *  neighbors listed in START, TO, WEIGHT, and MIDDLE. */
+        private void settle(boolean forward, int v, int[] start, int[] to,
+                            double[] weight, int[] middle) {
+            double d = forward ? _forwardDist[v] : _backwardDist[v];
+            double other = reached(!forward, v)
+                ? (forward ? _backwardDist[v] : _forwardDist[v])
+                : Double.POSITIVE_INFINITY;
+            if (d + other < _best) {
+                _best = d + other;
+                _meeting = v;
+            }
+            VertexHeap fringe = forward ? _forward : _backward;
+            for (int k = start[v]; k < start[v + 1]; k += 1) {
+                int w = to[k];
+                double dw = d + weight[k];
+                if (!reached(forward, w)
+                    || dw < (forward ? _forwardDist[w] : _backwardDist[w])) {
+                    reach(forward, w, dw, v, middle[k]);
+                    fringe.update(w, dw);
+                }
+            }
+        }
+
+        /** Returns true iff V has been reached by the current forward
+         *  search if FORWARD, or else by the backward search. */
+        private boolean reached(boolean forward, int v) {
+            return (forward ? _forwardStamp[v] : _backwardStamp[v])
+                == _stamp;
+        }
+
+        /** Record that V has been reached in the forward search if
+         *  FORWARD, or else the backward search, at weight D via the
+         *  hierarchy edge to or from PRED that bypasses MIDDLE. */
+        private void reach(boolean forward, int v, double d, int pred,
+                           int middle) {
+            if (forward) {
+                _forwardStamp[v] = _stamp;
+                _forwardDist[v] = d;
+                _forwardPred[v] = pred;
+                _forwardMiddle[v] = middle;
+            } else {
+                _backwardStamp[v] = _stamp;
+                _backwardDist[v] = d;
+                _backwardPred[v] = pred;
+                _backwardMiddle[v] = middle;
+            }
+        }
+
+        /** The largest vertex I have room for. */
+        private final int _size;
+        /** Weights found by the two searches. */
+        private final double[] _forwardDist, _backwardDist;
+        /** Predecessor of each vertex in the forward search and successor
+         *  in the backward search. */
+        private final int[] _forwardPred, _backwardPred;
+        /** Vertices bypassed by the edges to _forwardPred and
+         *  _backwardPred. */
+        private final int[] _forwardMiddle, _backwardMiddle;
+        /** A vertex's entries in the arrays above are valid iff its stamp
+         *  equals _stamp. */
+        private final int[] _forwardStamp, _backwardStamp;
+        /** Fringes of the two searches. */
+        private final VertexHeap _forward, _backward;
+        /** Identifies the current query. */
+        private int _stamp;
+        /** Weight of the shortest path found. */
+        private double _best;
+        /** The highest-ranked vertex on the shortest path found, or 0 if
+         *  there is none. */
+        private int _meeting;
+    }
+
+    /** A list of weighted overlay arcs leaving or entering a vertex. */
+    private static class Arcs {
+        /** Add an arc to or from TO with weight WEIGHT bypassing
+         *  MIDDLE. */
+        void add(int to, double weight, int middle) {
+            if (_size == _to.length) {
+                int n = Math.max(4, 2 * _size);
+                _to = Arrays.copyOf(_to, n);
+                _weight = Arrays.copyOf(_weight, n);
+                _middle = Arrays.copyOf(_middle, n);
+            }
+            _to[_size] = to;
+            _weight[_size] = weight;
+            _middle[_size] = middle;
+            _size += 1;
+        }
+
+        /** Set the weight and bypassed vertex of arc #K to WEIGHT and
+         *  MIDDLE. */
+        void set(int k, double weight, int middle) {
+            _weight[k] = weight;
+            _middle[k] = middle;
+        }
+
+        /** Returns the index of the arc to or from TO, or -1. */
+        int find(int to) {
+            for (int k = 0; k < _size; k += 1) {
+                if (_to[k] == to) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        /** Remove the arc to or from TO, if present, without preserving the
+         *  order of the others. */
+        void remove(int to) {
+            int k = find(to);
+            if (k >= 0) {
+                _size -= 1;
+                _to[k] = _to[_size];
+                _weight[k] = _weight[_size];
+                _middle[k] = _middle[_size];
+            }
+        }
+
+        /** Returns the number of my arcs whose other ends have a RANK above
+         *  R. */
+        int countRankedAbove(int[] rank, int r) {
+            int n = 0;
+            for (int k = 0; k < _size; k += 1) {
+                if (rank[_to[k]] > r) {
+                    n += 1;
+                }
+            }
+            return n;
+        }
+
+        /** Copy my arcs whose other ends have a RANK above R into TO,
+         *  WEIGHT, and MIDDLE, starting at index START. */
+        void copyRankedAbove(int[] rank, int r, int start, int[] to,
+                             double[] weight, int[] middle) {
+            for (int k = 0; k < _size; k += 1) {
+                if (rank[_to[k]] > r) {
+                    to[start] = _to[k];
+                    weight[start] = _weight[k];
+                    middle[start] = _middle[k];
+                    start += 1;
+                }
+            }
+        }
+
+        /** Other ends of the arcs. */
+        private int[] _to = new int[0];
+        /** Arc weights. */
+        private double[] _weight = new double[0];
+        /** Vertices bypassed by the arcs, or 0 for original edges. */
+        private int[] _middle = new int[0];
+        /** Number of arcs. */
+        private int _size;
+    }
+
+    /** Maximum number of vertices settled by a witness search. */
+    private static final int WITNESS_LIMIT = 500;
+}
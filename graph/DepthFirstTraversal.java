@@ -2,19 +2,57 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayDeque;
-import java.util.Collections;
+import java.util.Collection;
 
 /** Implements a depth-first traversal of a graph.  Generally, the
  *  client will extend this class, overriding the visit and
  *  postVisit methods, as desired (by default, they do nothing).
+ *
+ *  Rather than pushing each vertex back onto the fringe to be
+ *  post-visited later, the traversal keeps an explicit stack of the
+ *  vertices being explored, each with the size the fringe had just
+ *  before that vertex's successors were added.  A vertex is post-visited
+ *  as soon as the fringe shrinks back to that size, that is, once all the
+ *  successors it added have been dealt with.  The order of visits and
+ *  post-visits is the same as for the general Traversal, but each vertex
+ *  is handled once, in time proportional to the number of vertices and
+ *  edges, and without recursion, so arbitrarily deep graphs may be
+ *  traversed.
  *  @author Yuan Xie.
  */
 public class DepthFirstTraversal extends Traversal {
 
     /** A depth-first Traversal of G. */
     protected DepthFirstTraversal(Graph G) {
-        super(G, Collections.asLifoQueue(new ArrayDeque<>()));
+        super(G, new IntDeque(true));
+    }
+
+    @Override
+    public void traverse(Collection<Integer> V0) {
+        IntList open = new IntList(), openSizes = new IntList();
+        _fringe.addAll(V0);
+        while (true) {
+            int k = open.size() - 1;
+            int floor = k < 0 ? 0 : openSizes.get(k);
+            if (_fringe.size() > floor) {
+                int v = pop();
+                if (!marked(v)) {
+                    start(v);
+                    if (shouldPostVisit(v)) {
+                        open.add(v);
+                        openSizes.add(_fringe.size());
+                    }
+                    processSuccessors(v);
+                }
+            } else if (k >= 0) {
+                int v = open.get(k);
+                open.truncate(k);
+                openSizes.truncate(k);
+                finish(v);
+            } else {
+                break;
+            }
+        }
     }
 
     @Override
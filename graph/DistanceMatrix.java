@@ -0,0 +1,272 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/** The shortest-path distances from each of a set of source vertices to
+ *  each of a set of target vertices in an edge-weighted graph.  One
+ *  Dijkstra search is made from each source, and it stops as soon as all
+ *  the targets have been settled.  The searches share a single set of
+ *  per-vertex tables, which are not cleared between them (see
+ *  SearchWorkspace), so that the cost of each depends only on the part of
+ *  the graph it explores.  Optionally, the shortest paths themselves are
+ *  recorded as well.
+ *
+ *  The searches from different sources are independent, and compute may
+ *  instead spread them over the threads of a ForkJoinPool.  Each task of
+ *  that computation borrows a set of tables from those already made for
+ *  it and not in use, so that only about as many sets are made as there
+ *  are threads, and all are dropped when compute returns.  The graph is
+ *  then read by several threads at once, which is safe as long as
+ *  nothing modifies it in the meantime (see Graph), and getWeight must
+ *  likewise be safe to call concurrently.
+ *
+ *  The client supplies the edge weights by overriding getWeight.
+ *  @author Yuan Xie.
+ */
+public abstract class DistanceMatrix {
+
+    /** The distances in G from each of SOURCES to each of TARGETS. */
+    public DistanceMatrix(Graph G, int[] sources, int[] targets) {
+        this(G, sources, targets, false);
+    }
+
+    /** The distances in G from each of SOURCES to each of TARGETS, and
+     *  also the paths themselves if KEEPPATHS. */
+    public DistanceMatrix(Graph G, int[] sources, int[] targets,
+                          boolean keepPaths) {
+        for (int v : sources) {
+            G.checkMyVertex(v);
+        }
+        for (int v : targets) {
+            G.checkMyVertex(v);
+        }
+        _G = G;
+        _sources = sources.clone();
+        _targets = targets.clone();
+        _keepPaths = keepPaths;
+    }
+
+    /** Returns the weight of edge (U, V) in the graph, which must be
+     *  non-negative, or positive infinity if there is no such edge. */
+    protected abstract double getWeight(int u, int v);
+
+    /** Compute the distances (and paths, if requested).  Must be called
+     *  before distance, distances, or path. */
+    public void compute() {
+        prepare();
+        Search search = new Search();
+        for (int i = 0; i < _sources.length; i += 1) {
+            search.run(i);
+        }
+    }
+
+    /** Compute the distances (and paths, if requested) as for compute(),
+     *  dividing the searches among the threads of POOL.  Waits for all
+     *  the searches to finish. */
+    public void compute(ForkJoinPool pool) {
+        prepare();
+        int grain =
+            Math.max(1, _sources.length / (TASKS_PER_THREAD
+                                           * pool.getParallelism()));
+        pool.invoke(new Rows(0, _sources.length, grain,
+                             new ConcurrentLinkedQueue<>()));
+    }
+
+    /** Returns the source vertices, in order. */
+    public int[] sources() {
+        return _sources.clone();
+    }
+
+    /** Returns the target vertices, in order. */
+    public int[] targets() {
+        return _targets.clone();
+    }
+
+    /** Returns the length of the shortest path from the Ith source to the
+     *  Jth target, or positive infinity if there is none. */
+    public double distance(int i, int j) {
+        return _distances[i][j];
+    }
+
+    /** Returns a copy of the matrix of distances, whose [I][J] entry is
+     *  distance(I, J). */
+    public double[][] distances() {
+        double[][] result = new double[_distances.length][];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = _distances[i].clone();
+        }
+        return result;
+    }
+
+    /** Returns the vertices of a shortest path from the Ith source to the
+     *  Jth target, or null if there is no such path.  Valid only if the
+     *  paths were requested when I was constructed. */
+    public List<Integer> path(int i, int j) {
+        if (_paths == null) {
+            throw new IllegalStateException("paths were not recorded");
+        }
+        int[] vertices = _paths[i][j];
+        if (vertices == null) {
+            return null;
+        }
+        ArrayList<Integer> result = new ArrayList<>(vertices.length);
+        for (int v : vertices) {
+            result.add(v);
+        }
+        return result;
+    }
+
+    /** Allocate the results and record the set of distinct targets. */
+    private void prepare() {
+        _distances = new double[_sources.length][_targets.length];
+        _paths = _keepPaths ? new int[_sources.length][_targets.length][]
+            : null;
+        _isTarget = new boolean[_G.maxVertex() + 1];
+        _targetCount = 0;
+        for (int v : _targets) {
+            if (!_isTarget[v]) {
+                _isTarget[v] = true;
+                _targetCount += 1;
+            }
+        }
+    }
+
+    /** The task of filling in a range of rows of the results. */
+    private class Rows extends RecursiveAction {
+        /** Fill in rows LOW .. HIGH - 1, splitting the work into subtasks
+         *  of at most GRAIN rows.  Each subtask takes a Search from IDLE,
+         *  or creates one if there is none, and returns it when done. */
+        Rows(int low, int high, int grain,
+             ConcurrentLinkedQueue<Search> idle) {
+            _low = low;
+            _high = high;
+            _grain = grain;
+            _idle = idle;
+        }
+
+        @Override
+        protected void compute() {
+            if (_high - _low <= _grain) {
+                Search search = _idle.poll();
+                if (search == null) {
+                    search = new Search();
+                }
+                try {
+                    for (int i = _low; i < _high; i += 1) {
+                        search.run(i);
+                    }
+                } finally {
+                    _idle.add(search);
+                }
+            } else {
+                int mid = (_low + _high) >>> 1;
+                invokeAll(new Rows(_low, mid, _grain, _idle),
+                          new Rows(mid, _high, _grain, _idle));
+            }
+        }
+
+        /** The range of rows to fill in. */
+        private final int _low, _high;
+        /** Largest number of rows filled in without splitting. */
+        private final int _grain;
+        /** Searches not in use by any subtask of this computation. */
+        private final ConcurrentLinkedQueue<Search> _idle;
+    }
+
+    /** A Dijkstra search from one source, which relaxes the edges leaving
+     *  each vertex it settles. */
+    private class Search implements IntConsumer {
+        /** A search with its own workspace. */
+        Search() {
+            _work = new SearchWorkspace(_G.maxVertex());
+        }
+
+        /** Fill in row I of the results, searching from the Ith
+         *  source. */
+        void run(int i) {
+            int source = _sources[i];
+            VertexHeap fringe = _work.fringe();
+            _work.start(_G.maxVertex());
+            _work.set(source, 0.0, 0);
+            fringe.update(source, 0.0);
+
+            int remaining = _targetCount;
+            while (!fringe.isEmpty() && remaining > 0) {
+                _from = fringe.removeMin();
+                if (_isTarget[_from]) {
+                    remaining -= 1;
+                }
+                _G.forEachSuccessor(_from, this);
+            }
+
+            for (int j = 0; j < _targets.length; j += 1) {
+                _distances[i][j] = _work.weight(_targets[j]);
+                if (_paths != null
+                    && _distances[i][j] < Double.POSITIVE_INFINITY) {
+                    _paths[i][j] = pathTo(source, _targets[j]);
+                }
+            }
+        }
+
+        /** Relax the edge (_from, V). */
+        @Override
+        public void accept(int v) {
+            double w = _work.weight(_from) + getWeight(_from, v);
+            if (w < _work.weight(v)) {
+                _work.set(v, w, _from);
+                _work.fringe().update(v, w);
+            }
+        }
+
+        /** Returns the vertices on the path found from SOURCE to
+         *  TARGET. */
+        private int[] pathTo(int source, int target) {
+            IntList reversed = new IntList();
+            reversed.add(target);
+            for (int v = target; v != source; ) {
+                v = _work.predecessor(v);
+                reversed.add(v);
+            }
+            int n = reversed.size();
+            int[] result = new int[n];
+            for (int k = 0; k < n; k += 1) {
+                result[k] = reversed.get(n - 1 - k);
+            }
+            return result;
+        }
+
+        /** Tables and fringe for the search. */
+        private final SearchWorkspace _work;
+        /** The vertex being settled. */
+        private int _from;
+    }
+
+    /** The graph being searched. */
+    private final Graph _G;
+    /** The source and target vertices. */
+    private final int[] _sources, _targets;
+    /** True iff paths are to be recorded. */
+    private final boolean _keepPaths;
+    /** _isTarget[V] is true iff V is a target. */
+    private boolean[] _isTarget;
+    /** Number of distinct targets. */
+    private int _targetCount;
+    /** _distances[I][J] is the distance from the Ith source to the Jth
+     *  target. */
+    private double[][] _distances;
+    /** _paths[I][J] holds the vertices of the path from the Ith source to
+     *  the Jth target, or null if there is none.  Null if paths are not
+     *  being kept. */
+    private int[][][] _paths;
+
+    /** Number of tasks into which compute(ForkJoinPool) aims to divide the
+     *  sources for each thread, to even out differences in their cost. */
+    private static final int TASKS_PER_THREAD = 4;
+}
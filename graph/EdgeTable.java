@@ -0,0 +1,209 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A table of the edges of a graph, each a pair of vertices (U, V) with an
+ *  edge id, that looks edges up by their end points without boxing or
+ *  allocating anything.  Edges are kept in slots numbered in the order
+ *  they were added, and an open-addressed hash table maps each pair of end
+ *  points to its slot.  In an undirected graph, (U, V) and (V, U)
+ *  denote the same edge, which keeps the orientation it was added with.
+ *  The slot of a removed edge is left empty until more than half of the
+ *  slots are empty, when the remaining edges are moved down to fill them,
+ *  keeping their order.
+ *  @author Yuan Xie.
+ */
+class EdgeTable {
+
+    /** An empty table for the edges of a graph that is directed iff
+     *  DIRECTED. */
+    EdgeTable(boolean directed) {
+        _directed = directed;
+        _keys = new long[INITIAL_CAPACITY];
+        _slots = new int[INITIAL_CAPACITY];
+        _from = new int[INITIAL_CAPACITY];
+        _to = new int[INITIAL_CAPACITY];
+        _ids = new int[INITIAL_CAPACITY];
+    }
+
+    /** Returns the number of edges in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns the id of edge (U, V), or 0 if it is not in me. */
+    int get(int u, int v) {
+        int k = find(key(u, v));
+        return k < 0 ? 0 : _ids[_slots[k] - 1];
+    }
+
+    /** Add edge (U, V), which must not be in me, with id ID > 0. */
+    void put(int u, int v, int id) {
+        if (_end == _ids.length) {
+            if (2 * _size <= _end) {
+                pack();
+            } else {
+                int n = 2 * _ids.length;
+                _from = Arrays.copyOf(_from, n);
+                _to = Arrays.copyOf(_to, n);
+                _ids = Arrays.copyOf(_ids, n);
+            }
+        }
+        _from[_end] = u;
+        _to[_end] = v;
+        _ids[_end] = id;
+        _end += 1;
+        _size += 1;
+        if (2 * _size > _keys.length) {
+            rehash(2 * _keys.length);
+        } else {
+            insert(key(u, v), _end);
+        }
+    }
+
+    /** Remove edge (U, V) and return its id, or return 0 if it is not in
+     *  me. */
+    int remove(int u, int v) {
+        int k = find(key(u, v));
+        if (k < 0) {
+            return 0;
+        }
+        int slot = _slots[k] - 1;
+        int id = _ids[slot];
+        _ids[slot] = 0;
+        _size -= 1;
+        int mask = _keys.length - 1;
+        for (int j = (k + 1) & mask; _slots[j] != 0; j = (j + 1) & mask) {
+            int home = mix(_keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - k) & mask)) {
+                _keys[k] = _keys[j];
+                _slots[k] = _slots[j];
+                k = j;
+            }
+        }
+        _slots[k] = 0;
+        return id;
+    }
+
+    /** Returns the number of slots in use.  The edges in me occupy some
+     *  of slots 0 .. end() - 1, in the order they were added. */
+    int end() {
+        return _end;
+    }
+
+    /** Returns the id of the edge in slot K, or 0 if slot K is empty. */
+    int id(int k) {
+        return _ids[k];
+    }
+
+    /** Set the id of the edge in slot K, which must not be empty, to
+     *  ID > 0. */
+    void setId(int k, int id) {
+        _ids[k] = id;
+    }
+
+    /** Returns the first end point of the edge in slot K. */
+    int from(int k) {
+        return _from[k];
+    }
+
+    /** Returns the second end point of the edge in slot K. */
+    int to(int k) {
+        return _to[k];
+    }
+
+    /** Returns the key of edge (U, V): its end points packed into a
+     *  single long, in increasing order if I am undirected. */
+    private long key(int u, int v) {
+        if (!_directed && u > v) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        return ((long) u << Integer.SIZE) | (v & 0xffffffffL);
+    }
+
+    /** Returns the bits of KEY spread over an int, so that edges between
+     *  nearby vertices do not cluster in the table. */
+    private static int mix(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Returns the position of KEY in the hash table, or -1 if it is
+     *  absent. */
+    private int find(long key) {
+        int mask = _keys.length - 1;
+        for (int k = mix(key) & mask; _slots[k] != 0; k = (k + 1) & mask) {
+            if (_keys[k] == key) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** Enter KEY, which is absent, in the hash table for slot SLOT1 - 1. */
+    private void insert(long key, int slot1) {
+        int mask = _keys.length - 1;
+        int k;
+        for (k = mix(key) & mask; _slots[k] != 0; k = (k + 1) & mask) {
+            continue;
+        }
+        _keys[k] = key;
+        _slots[k] = slot1;
+    }
+
+    /** Move the edges in me down into the empty slots, keeping their
+     *  order, and rebuild the hash table to match. */
+    private void pack() {
+        int n = 0;
+        for (int k = 0; k < _end; k += 1) {
+            if (_ids[k] != 0) {
+                _from[n] = _from[k];
+                _to[n] = _to[k];
+                _ids[n] = _ids[k];
+                n += 1;
+            }
+        }
+        Arrays.fill(_ids, n, _end, 0);
+        _end = n;
+        rehash(_keys.length);
+    }
+
+    /** Rebuild the hash table with CAPACITY positions, a power of 2,
+     *  from the occupied slots. */
+    private void rehash(int capacity) {
+        _keys = new long[capacity];
+        _slots = new int[capacity];
+        for (int k = 0; k < _end; k += 1) {
+            if (_ids[k] != 0) {
+                insert(key(_from[k], _to[k]), k + 1);
+            }
+        }
+    }
+
+    /** Initial capacity of the hash table and of the slots; must be a
+     *  power of 2. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** True iff the order of the end points of an edge matters. */
+    private final boolean _directed;
+    /** The keys of my edges, in an open-addressed table whose length is
+     *  always a power of 2, and no more than half full. */
+    private long[] _keys;
+    /** _slots[K] is one more than the slot of the edge keyed by _keys[K],
+     *  or 0 if position K is free. */
+    private int[] _slots;
+    /** _from[K] is the first end point of the edge in slot K. */
+    private int[] _from;
+    /** _to[K] is the second end point of the edge in slot K. */
+    private int[] _to;
+    /** _ids[K] is the id of the edge in slot K, or 0 if it is empty. */
+    private int[] _ids;
+    /** Number of slots in use. */
+    private int _end;
+    /** Number of edges in me. */
+    private int _size;
+}
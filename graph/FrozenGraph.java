@@ -0,0 +1,351 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/** An immutable snapshot of a Graph, intended for graphs that are built
+ *  once and then searched many times.  Successors and predecessors are
+ *  packed into compressed sparse row form: for each vertex V, its
+ *  successors occupy positions [start(V) .. start(V + 1) - 1] of a single
+ *  int array, alongside the identifiers of the corresponding edges.  The
+ *  snapshot keeps the vertex numbers, edge identifiers, and adjacency order
+ *  of the graph it was made from, so labels and search results carry over
+ *  unchanged.  Each row is also indexed in order of successor, so that
+ *  contains(U, V) and edge-id lookups take time logarithmic in the degree
+ *  of U.  All operations that would modify the graph throw
+ *  UnsupportedOperationException.
+ *  @author Yuan Xie.
+ */
+public class FrozenGraph extends Graph {
+
+    /** An immutable copy of the current contents of G. */
+    public FrozenGraph(Graph G) {
+        _directed = G.isDirected();
+        _vertices = new BitSet();
+        _maxVertex = G.maxVertex();
+        _edgeSize = G.edgeSize();
+
+        _succStart = new int[_maxVertex + 2];
+        for (int v : G.vertices()) {
+            _vertices.set(v);
+            _succStart[v + 1] = G.outDegree(v);
+        }
+        _vertexSize = _vertices.cardinality();
+        prefixSums(_succStart);
+        _succ = new int[_succStart[_maxVertex + 1]];
+        _succId = new int[_succ.length];
+        for (int v : G.vertices()) {
+            int k = _succStart[v];
+            for (int w : G.successors(v)) {
+                _succ[k] = w;
+                _succId[k] = G.edgeId(v, w);
+                k += 1;
+            }
+        }
+        _succOrder = sortedRows(_succStart, _succ);
+
+        if (_directed) {
+            _predStart = new int[_maxVertex + 2];
+            for (int v : G.vertices()) {
+                _predStart[v + 1] = G.inDegree(v);
+            }
+            prefixSums(_predStart);
+            _pred = new int[_predStart[_maxVertex + 1]];
+            for (int v : G.vertices()) {
+                int k = _predStart[v];
+                for (int u : G.predecessors(v)) {
+                    _pred[k] = u;
+                    k += 1;
+                }
+            }
+        } else {
+            _predStart = _succStart;
+            _pred = _succ;
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return contains(v) ? _succStart[v + 1] - _succStart[v] : 0;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return contains(v) ? _predStart[v + 1] - _predStart[v] : 0;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex && _vertices.get(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeIndex(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw immutable();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw immutable();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw immutable();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw immutable();
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return new Iteration<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return _next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (_next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = _next;
+                _next = _vertices.nextSetBit(v + 1);
+                return v;
+            }
+
+            /** The next vertex to deliver, or -1 if none. */
+            private int _next = _vertices.nextSetBit(1);
+        };
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        if (!contains(v)) {
+            return new RangeIteration(_succ, 0, 0);
+        }
+        return new RangeIteration(_succ, _succStart[v], _succStart[v + 1]);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        if (!contains(v)) {
+            return new RangeIteration(_pred, 0, 0);
+        }
+        return new RangeIteration(_pred, _predStart[v], _predStart[v + 1]);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                return _u >= 0;
+            }
+
+            @Override
+            public int[] next() {
+                if (_u < 0) {
+                    throw new NoSuchElementException();
+                }
+                int[] edge = { _u, _succ[_k] };
+                _k += 1;
+                advance();
+                return edge;
+            }
+
+            /** Move _u and _k to the next edge to be delivered, if any,
+             *  starting from position _k.  Undirected edges are delivered
+             *  only from their smaller end point. */
+            private void advance() {
+                while (_u >= 0) {
+                    for (; _k < _succStart[_u + 1]; _k += 1) {
+                        if (_directed || _u <= _succ[_k]) {
+                            return;
+                        }
+                    }
+                    _u = _vertices.nextSetBit(_u + 1);
+                    if (_u >= 0) {
+                        _k = _succStart[_u];
+                    }
+                }
+            }
+
+            /** Source vertex of the next edge, or -1 if none. */
+            private int _u = _vertices.nextSetBit(1);
+            /** Position of the next edge in _succ. */
+            private int _k = _u < 0 ? 0 : _succStart[_u];
+
+            {
+                advance();
+            }
+        };
+    }
+
+    @Override
+    void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            for (int k = _succStart[v]; k < _succStart[v + 1]; k += 1) {
+                action.accept(_succ[k]);
+            }
+        }
+    }
+
+    @Override
+    void forEachPredecessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            for (int k = _predStart[v]; k < _predStart[v + 1]; k += 1) {
+                action.accept(_pred[k]);
+            }
+        }
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        int k = edgeIndex(u, v);
+        return k < 0 ? 0 : _succId[k];
+    }
+
+    /** Returns the position of the edge (U, V) in _succ, or -1 if there is
+     *  no such edge.  Searches U's row of _succOrder by bisection. */
+    private int edgeIndex(int u, int v) {
+        if (!contains(u)) {
+            return -1;
+        }
+        int lo = _succStart[u], hi = _succStart[u + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int w = _succ[_succOrder[mid]];
+            if (w < v) {
+                lo = mid + 1;
+            } else if (w > v) {
+                hi = mid;
+            } else {
+                return _succOrder[mid];
+            }
+        }
+        return -1;
+    }
+
+    /** Returns an array that holds, for each row of ITEMS delimited by
+     *  START (as for _succStart), the positions in that row in increasing
+     *  order of the items there. */
+    private static int[] sortedRows(int[] start, int[] items) {
+        long[] keys = new long[items.length];
+        for (int k = 0; k < items.length; k += 1) {
+            keys[k] = ((long) items[k] << Integer.SIZE) | k;
+        }
+        for (int v = 0; v + 1 < start.length; v += 1) {
+            Arrays.sort(keys, start[v], start[v + 1]);
+        }
+        int[] order = new int[items.length];
+        for (int k = 0; k < items.length; k += 1) {
+            order[k] = (int) keys[k];
+        }
+        return order;
+    }
+
+    /** Replace each element of COUNTS by the sum of it and all preceding
+     *  elements. */
+    private static void prefixSums(int[] counts) {
+        for (int i = 1; i < counts.length; i += 1) {
+            counts[i] += counts[i - 1];
+        }
+    }
+
+    /** Returns the exception thrown by attempts to modify me. */
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("graph is immutable");
+    }
+
+    /** An Iteration over a range of an int array. */
+    private static class RangeIteration extends Iteration<Integer> {
+        /** An Iteration over ITEMS[START .. END - 1]. */
+        RangeIteration(int[] items, int start, int end) {
+            _items = items;
+            _k = start;
+            _end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _end;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _items[_k - 1];
+        }
+
+        /** The array I iterate over. */
+        private final int[] _items;
+        /** Position of the next item to deliver. */
+        private int _k;
+        /** Position just past the last item to deliver. */
+        private final int _end;
+    }
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Bit V is set iff V is one of my vertices. */
+    private final BitSet _vertices;
+    /** Number of vertices. */
+    private final int _vertexSize;
+    /** Largest vertex number, or 0 if empty. */
+    private final int _maxVertex;
+    /** Number of edges. */
+    private final int _edgeSize;
+
+    /** Successors of vertex V are _succ[_succStart[V] .. _succStart[V+1]-1].
+     *  _succStart has length _maxVertex + 2. */
+    private final int[] _succStart;
+    /** Packed successor lists. */
+    private final int[] _succ;
+    /** Edge identifiers parallel to _succ. */
+    private final int[] _succId;
+    /** The positions in each row of _succ, in increasing order of
+     *  successor. */
+    private final int[] _succOrder;
+    /** Predecessor row offsets, as for _succStart.  The same array as
+     *  _succStart in an undirected graph. */
+    private final int[] _predStart;
+    /** Packed predecessor lists.  The same array as _succ in an undirected
+     *  graph. */
+    private final int[] _pred;
+}
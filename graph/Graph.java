@@ -14,12 +14,21 @@ package graph;
  *   + You may add additional non-public classes to the graph package.
  */
 
+import java.util.function.IntConsumer;
+
 /** Represents a general unlabeled graph whose vertices are denoted by
  *  positive integers.  A graph may be directed or undirected.  For
  *  an undirected graph, outgoing and incoming edges are the same.
  *  Graphs may have self edges, but no multi-edges (edges with the same
  *  end points).
  *
+ *  Several threads may read a graph at once: the methods that do not
+ *  modify it (such as vertexSize, contains, successors, predecessors, and
+ *  edges) do not change any internal state, and each call that returns an
+ *  Iteration returns a new one, to be used by one thread only.  Adding or
+ *  removing vertices or edges is not synchronized, however, and must not
+ *  overlap with any other use of the graph.
+ *
  *  @author P. N. Hilfinger
  */
 public abstract class Graph {
@@ -100,6 +109,36 @@ public abstract class Graph {
 
     /* Non-public methods for internal use. */
 
+    /** Apply ACTION to each successor of V, in the same order as
+     *  successors(V).  Does nothing if V is not my vertex.  Unlike
+     *  successors, implementations in this package deliver vertices
+     *  without allocating per edge, so the algorithms in this package use
+     *  this in their inner loops.  I must not be modified while this is in
+     *  progress. */
+    void forEachSuccessor(int v, IntConsumer action) {
+        for (int w : successors(v)) {
+            action.accept(w);
+        }
+    }
+
+    /** Apply ACTION to each predecessor of V, in the same order as
+     *  predecessors(V), as for forEachSuccessor. */
+    void forEachPredecessor(int v, IntConsumer action) {
+        for (int u : predecessors(v)) {
+            action.accept(u);
+        }
+    }
+
+    /** Renumber my edges so that their ids are 1 .. edgeSize(), releasing
+     *  any space held for the ids of removed edges.  Returns an array
+     *  that maps each old edge id to its new one, or to 0 if no edge had
+     *  that id, or returns null if the ids are unchanged.  This default
+     *  implementation, for graphs whose ids cannot be renumbered, does
+     *  nothing and returns null. */
+    int[] compactEdges() {
+        return null;
+    }
+
     /** Throw exception if V is not one of my vertices. */
     protected void checkMyVertex(int v) {
         if (!contains(v)) {
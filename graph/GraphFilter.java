@@ -96,11 +96,25 @@ public class GraphFilter extends Graph {
         return _G.edgeId(u, v);
     }
 
+    @Override
+    int[] compactEdges() {
+        return _G.compactEdges();
+    }
+
     @Override
     protected void checkMyVertex(int v) {
         _G.checkMyVertex(v);
     }
 
+    /** Returns the Graph to which I delegate, for subclasses in this
+     *  package that know their edges to be its own and so may use its
+     *  forEachSuccessor and forEachPredecessor directly.  (Mine, as
+     *  Graph's, go through successors and predecessors, so that
+     *  overriding those also filters the searches in this package.) */
+    Graph base() {
+        return _G;
+    }
+
     /** My underlying graph. */
     private final Graph _G;
 }
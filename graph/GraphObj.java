@@ -3,9 +3,15 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
 
 /** A partial implementation of Graph containing elements common to
- *  directed and undirected graphs.
+ *  directed and undirected graphs.  Each vertex has a list of outgoing
+ *  (and, for directed graphs, incoming) neighbors, and all edges are
+ *  indexed by their end points, so that edge lookups take constant
+ *  expected time and adjacency queries take time proportional to the
+ *  degree of the vertex involved.
  *
  *  @author Yuan Xie.
  */
@@ -13,9 +19,12 @@ abstract class GraphObj extends Graph {
 
     /** A new, empty Graph. */
     GraphObj() {
-        _myVertices = new ArrayList<>();
-        _myEdges = new ArrayList<>();
+        _myVertices = new VertexSet();
+        _myEdges = new EdgeTable(isDirected());
+        _out = new IntList[INITIAL_VERTICES];
+        _in = new IntList[INITIAL_VERTICES];
         _edgeID = 0;
+        _freeIds = new IntDeque(false);
     }
 
     @Override
@@ -25,7 +34,7 @@ abstract class GraphObj extends Graph {
 
     @Override
     public int maxVertex() {
-        return _myVertices.get(_myVertices.size() - 1);
+        return _myVertices.max();
     }
 
     @Override
@@ -38,20 +47,7 @@ abstract class GraphObj extends Graph {
 
     @Override
     public int outDegree(int v) {
-        if (_myVertices.contains(v)) {
-            int result = 0;
-            for (Edge e: _myEdges) {
-                if (e.edge[0] == v) {
-                    result += 1;
-                }
-                if (!isDirected() && e.edge[0] != v && e.edge[1] == v) {
-                    result += 1;
-                }
-            }
-            return result;
-        } else {
-            return 0;
-        }
+        return outgoing(v).size();
     }
 
     @Override
@@ -64,112 +60,100 @@ abstract class GraphObj extends Graph {
 
     @Override
     public boolean contains(int u, int v) {
-        for (Edge e: _myEdges) {
-            if (e.edge[0] == u && e.edge[1] == v) {
-                return true;
-            }
-            if (!isDirected() && e.edge[0] == v && e.edge[1] == u) {
-                return true;
-            }
-        }
-        return false;
+        return edgeId(u, v) != 0;
     }
 
     @Override
     public int add() {
-        if (_myVertices.size() == 0 || _myVertices.get(0) != 1) {
-            _myVertices.add(0, 1);
-            return 1;
-        }
-        for (int i = 0; i < _myVertices.size() - 1; i += 1) {
-            if (_myVertices.get(i + 1) != _myVertices.get(i) + 1) {
-                _myVertices.add(i + 1, _myVertices.get(i) + 1);
-                return _myVertices.get(i + 1);
-            }
-        }
-        _myVertices.add(maxVertex() + 1);
-        return maxVertex();
+        int v = _myVertices.add();
+        ensureAdjacency(v);
+        return v;
     }
 
     @Override
     public int add(int u, int v) {
         checkMyVertex(u);
         checkMyVertex(v);
-        for (Edge e: _myEdges) {
-            if (e.edge[0] == u && e.edge[1] == v) {
-                return e.edgeID;
-            }
-            if (!isDirected() && e.edge[0] == v && e.edge[1] == u) {
-                return e.edgeID;
-            }
+        int old = edgeId(u, v);
+        if (old != 0) {
+            return old;
         }
-        int[] e = {u, v};
-        _edgeID += 1;
-        Edge edge = new Edge(e, _edgeID);
-        _myEdges.add(edge);
-        return edge.edgeID;
+        int id = newEdgeId();
+        _myEdges.put(u, v, id);
+        adjacency(_out, u).add(v);
+        if (isDirected()) {
+            adjacency(_in, v).add(u);
+        } else if (u != v) {
+            adjacency(_out, v).add(u);
+        }
+        return id;
     }
 
     @Override
     public void remove(int v) {
-        ArrayList<Edge> remove = new ArrayList<>();
-        if (_myVertices.contains(v)) {
-            int index = _myVertices.indexOf(v);
-            _myVertices.remove(index);
-            for (Edge e: _myEdges) {
-                if (e.edge[0] == v || e.edge[1] == v) {
-                    remove.add(e);
+        if (_myVertices.remove(v)) {
+            IntList out = adjacency(_out, v);
+            for (int i = 0; i < out.size(); i += 1) {
+                int w = out.get(i);
+                release(_myEdges.remove(v, w));
+                if (isDirected()) {
+                    adjacency(_in, w).removeValue(v);
+                } else if (w != v) {
+                    adjacency(_out, w).removeValue(v);
                 }
             }
-            for (Edge e: remove) {
-                _myEdges.remove(e);
+            out.clear();
+            IntList in = adjacency(_in, v);
+            for (int i = 0; i < in.size(); i += 1) {
+                int w = in.get(i);
+                if (w != v) {
+                    release(_myEdges.remove(w, v));
+                    adjacency(_out, w).removeValue(v);
+                }
             }
+            in.clear();
         }
     }
 
     @Override
     public void remove(int u, int v) {
-        ArrayList<Edge> remove = new ArrayList<>();
-        for (Edge e: _myEdges) {
-            if (e.edge[0] == u && e.edge[1] == v) {
-                remove.add(e);
+        int id = _myEdges.remove(u, v);
+        if (id != 0) {
+            release(id);
+            adjacency(_out, u).removeValue(v);
+            if (isDirected()) {
+                adjacency(_in, v).removeValue(u);
+            } else if (u != v) {
+                adjacency(_out, v).removeValue(u);
             }
-            if (!isDirected() && e.edge[0] == v && e.edge[1] == u) {
-                remove.add(e);
-            }
-        }
-        for (Edge e: remove) {
-            _myEdges.remove(e);
         }
     }
 
     @Override
     public Iteration<Integer> vertices() {
-        return Iteration.iteration(_myVertices);
+        return _myVertices.iteration();
     }
 
     @Override
     public Iteration<Integer> successors(int v) {
-        ArrayList<Integer> result = new ArrayList<>();
-        for (Edge e: _myEdges) {
-            if (e.edge[0] == v) {
-                result.add(e.edge[1]);
-            }
-            if (!isDirected() && e.edge[0] != v && e.edge[1] == v) {
-                result.add(e.edge[0]);
-            }
-        }
-        return Iteration.iteration(result);
+        return outgoing(v).iteration();
     }
 
     @Override
     public abstract Iteration<Integer> predecessors(int v);
 
+    @Override
+    void forEachSuccessor(int v, IntConsumer action) {
+        forEach(outgoing(v), action);
+    }
+
     @Override
     public Iteration<int[]> edges() {
-        ArrayList<int[]> result = new ArrayList<>();
-        for (Edge e: _myEdges) {
-            result.add(e.edge);
+        ArrayList<int[]> result = new ArrayList<>(_myEdges.size());
+        for (int k = 0; k < _myEdges.end(); k += 1) {
+            if (_myEdges.id(k) != 0) {
+                result.add(new int[] {_myEdges.from(k), _myEdges.to(k)});
+            }
         }
         return Iteration.iteration(result);
     }
@@ -183,61 +167,122 @@ abstract class GraphObj extends Graph {
 
     @Override
     protected int edgeId(int u, int v) {
-        for (Edge e: _myEdges) {
-            if (e.edge[0] == u && e.edge[1] == v) {
-                return e.edgeID;
-            }
-            if (!isDirected() && e.edge[0] == v && e.edge[1] == u) {
-                return e.edgeID;
+        return _myEdges.get(u, v);
+    }
+
+    /** Renumber my edges 1 .. edgeSize(), in the order they were added,
+     *  and forget the ids of removed edges. */
+    @Override
+    int[] compactEdges() {
+        int[] ids = new int[_edgeID + 1];
+        int n = 0;
+        for (int k = 0; k < _myEdges.end(); k += 1) {
+            if (_myEdges.id(k) != 0) {
+                n += 1;
+                ids[_myEdges.id(k)] = n;
+                _myEdges.setId(k, n);
             }
         }
-        return 0;
+        _edgeID = n;
+        _freeIds = new IntDeque(false);
+        return ids;
     }
 
-    /** Package-Private method that returns my vertices. */
+    /** Package-Private method that returns my vertices in increasing
+     *  order. */
     ArrayList<Integer> myVertices() {
-        return _myVertices;
+        return _myVertices.toList();
     }
 
-    /** Package-Private method that returns my edges. */
-    ArrayList<Edge> myEdges() {
-        return _myEdges;
+    /** Returns the list of successors of V, in the order their edges were
+     *  added.  Empty if V is not my vertex.  The result must not be
+     *  modified. */
+    IntList outgoing(int v) {
+        return v > 0 && v < _out.length && _out[v] != null ? _out[v] : EMPTY;
     }
 
-    /** ArrayList representation of my vertices. */
-    private ArrayList<Integer> _myVertices;
-
-
-    /** ArrayList containing Edge. */
-    private ArrayList<Edge> _myEdges;
-
-    /** Int representing next edgeID to be assigned. */
-    private int _edgeID;
-
-    /** Package-Private class representing an edge. */
-    class Edge {
+    /** Returns the list of predecessors of V in a directed graph, in the
+     *  order their edges were added.  Empty if V is not my vertex or I am
+     *  undirected.  The result must not be modified. */
+    IntList incoming(int v) {
+        return v > 0 && v < _in.length && _in[v] != null ? _in[v] : EMPTY;
+    }
 
-        /** Integer array representing an edge. */
-        private int[] edge;
+    /** Apply ACTION to each element of L in order. */
+    static void forEach(IntList L, IntConsumer action) {
+        for (int k = 0; k < L.size(); k += 1) {
+            action.accept(L.get(k));
+        }
+    }
 
-        /** Integer representation for edgeID. */
-        private int edgeID;
+    /** Returns an id for a new edge: the id of the edge removed longest
+     *  ago if at least RECYCLE_THRESHOLD removed ids are waiting, and
+     *  otherwise one never used before. */
+    private int newEdgeId() {
+        if (_freeIds.size() >= RECYCLE_THRESHOLD) {
+            return _freeIds.removeInt();
+        }
+        _edgeID += 1;
+        return _edgeID;
+    }
 
-        /** Constructor that takes in E and EID. */
-        Edge(int[] e, int eID) {
-            this.edge = e;
-            this.edgeID = eID;
+    /** Make ID, the id of an edge just removed, available for reuse.
+     *  Does nothing if ID is 0. */
+    private void release(int id) {
+        if (id != 0) {
+            _freeIds.addInt(id);
         }
+    }
 
-        /** Method that returns my edge. */
-        int[] myEdge() {
-            return edge;
+    /** Make sure that my adjacency tables have room for vertex V. */
+    private void ensureAdjacency(int v) {
+        if (v >= _out.length) {
+            int n = Math.max(v + 1, 2 * _out.length);
+            _out = Arrays.copyOf(_out, n);
+            _in = Arrays.copyOf(_in, n);
         }
+    }
 
-        /** Method that returns my edgeID. */
-        int myEdgeID() {
-            return edgeID;
+    /** Returns the modifiable adjacency list for V in TABLE, creating it if
+     *  needed.  Assumes V is my vertex. */
+    private IntList adjacency(IntList[] table, int v) {
+        if (table[v] == null) {
+            table[v] = new IntList();
         }
+        return table[v];
     }
 
+    /** Number of vertex slots initially allocated in the adjacency
+     *  tables. */
+    private static final int INITIAL_VERTICES = 16;
+
+    /** The adjacency list of vertices that have no neighbors. */
+    private static final IntList EMPTY = new IntList();
+
+    /** Number of ids of removed edges held back before any is reused.
+     *  Keeping a few back means an id is not handed out again the moment
+     *  its edge is removed, while the largest id issued stays within
+     *  RECYCLE_THRESHOLD of the largest number of edges I have had. */
+    private static final int RECYCLE_THRESHOLD = 32;
+
+    /** My vertices. */
+    private VertexSet _myVertices;
+
+    /** All my edges, indexed by their end points, in the order they were
+     *  added. */
+    private EdgeTable _myEdges;
+
+    /** Outgoing adjacency lists, indexed by vertex.  For an undirected
+     *  graph, these hold all neighbors. */
+    private IntList[] _out;
+
+    /** Incoming adjacency lists of a directed graph, indexed by vertex. */
+    private IntList[] _in;
+
+    /** The largest edgeID assigned since I was made or compacted. */
+    private int _edgeID;
+
+    /** Ids of removed edges, not yet reused, oldest first. */
+    private IntDeque _freeIds;
+
 }
@@ -3,6 +3,9 @@ package graph;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -192,6 +195,347 @@ public class GraphTest {
         assertTrue(g.contains(5));
     }
 
+    @Test
+    public void testRemoveKeepsAdjacency() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(2, 2);
+        g.add(3, 2);
+        g.add(2, 4);
+        assertEquals(3, g.inDegree(2));
+        assertEquals(2, g.outDegree(2));
+
+        g.remove(2);
+        assertEquals(0, g.edgeSize());
+        assertEquals(0, g.outDegree(1));
+        assertEquals(0, g.inDegree(4));
+        assertFalse(g.successors(3).hasNext());
+
+        UndirectedGraph h = new UndirectedGraph();
+        for (int i = 0; i < 3; i += 1) {
+            h.add();
+        }
+        h.add(3, 1);
+        h.add(2, 2);
+        h.add(1, 2);
+        assertEquals(h.edgeId(3, 1), h.edgeId(1, 3));
+        assertEquals(2, h.degree(1));
+        assertEquals(2, h.degree(2));
+        h.remove(2, 1);
+        assertEquals(1, h.degree(1));
+        assertEquals(1, h.degree(2));
+        assertFalse(h.contains(1, 2));
+        assertTrue(h.contains(2, 2));
+    }
+
+    @Test
+    public void testAddReusesSmallest() {
+        DirectedGraph g = new DirectedGraph();
+        assertEquals(0, g.maxVertex());
+        for (int i = 0; i < 8; i += 1) {
+            g.add();
+        }
+        g.remove(6);
+        g.remove(2);
+        g.remove(8);
+        assertEquals(7, g.maxVertex());
+        assertEquals(5, g.vertexSize());
+        assertEquals(2, g.add());
+        assertEquals(6, g.add());
+        assertEquals(8, g.add());
+        assertEquals(9, g.add());
+        g.remove(9);
+        g.remove(1);
+        assertEquals(8, g.maxVertex());
+        assertEquals(1, g.add());
+        assertEquals(9, g.add());
+    }
+
+    @Test
+    public void testEdgeIdsRecycled() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 10; i += 1) {
+            g.add();
+        }
+        for (int i = 0; i < 1000; i += 1) {
+            int u = 1 + i % 10, v = 1 + (i * 7 + 3) % 10;
+            g.add(u, v);
+            assertTrue(g.edgeId(u, v) <= 100 + 64);
+            if (i % 3 != 0) {
+                g.remove(u, v);
+            }
+        }
+        for (int u = 1; u <= 10; u += 1) {
+            g.remove(u);
+            g.add();
+        }
+        assertEquals(0, g.edgeSize());
+        for (int i = 0; i < 100; i += 1) {
+            int u = 1 + i / 10, v = 1 + i % 10;
+            g.add(u, v);
+            assertTrue(g.edgeId(u, v) <= 100 + 64);
+        }
+    }
+
+    @Test
+    public void testEdgeChurn() {
+        Random rand = new Random(61);
+        UndirectedGraph g = new UndirectedGraph();
+        int n = 40;
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        LinkedHashMap<Integer, int[]> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 20000; i += 1) {
+            int u = 1 + rand.nextInt(n), v = 1 + rand.nextInt(n);
+            int key = Math.min(u, v) * (n + 1) + Math.max(u, v);
+            assertEquals(expected.containsKey(key), g.contains(v, u));
+            if (expected.containsKey(key) && rand.nextInt(3) != 0) {
+                int id = g.edgeId(u, v);
+                g.remove(v, u);
+                assertFalse(g.contains(u, v));
+                assertEquals(0, g.edgeId(u, v));
+                expected.remove(key);
+                for (int[] e : expected.values()) {
+                    assertTrue(e[2] != id);
+                }
+            } else if (!expected.containsKey(key)) {
+                int id = g.add(u, v);
+                assertEquals(id, g.edgeId(v, u));
+                expected.put(key, new int[] {u, v, id});
+            }
+            assertEquals(expected.size(), g.edgeSize());
+        }
+        Iterator<int[]> all = expected.values().iterator();
+        for (int[] e : g.edges()) {
+            int[] f = all.next();
+            assertEquals(f[0], e[0]);
+            assertEquals(f[1], e[1]);
+            assertEquals(f[2], g.edgeId(e[0], e[1]));
+        }
+        assertFalse(all.hasNext());
+    }
+
+    @Test
+    public void testCompact() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(new UndirectedGraph());
+        for (int i = 0; i < 6; i += 1) {
+            g.add("v" + i);
+        }
+        for (int u = 1; u <= 6; u += 1) {
+            for (int v = u; v <= 6; v += 1) {
+                g.add(u, v, u + "-" + v);
+            }
+        }
+        g.remove(2);
+        g.remove(3, 5);
+        g.remove(4, 4);
+        int e15 = g.edgeId(1, 5);
+        int[] ids = g.compact();
+        assertEquals(g.edgeId(1, 5), ids[e15]);
+        assertEquals(0, ids[2]);
+        assertEquals(13, g.edgeSize());
+        ArrayList<Integer> seen = new ArrayList<>();
+        for (int u = 1; u <= 6; u += 1) {
+            for (int v = u; v <= 6; v += 1) {
+                if (g.contains(u, v)) {
+                    assertEquals(u + "-" + v, g.getLabel(v, u));
+                    assertTrue(g.edgeId(u, v) <= 13);
+                    assertFalse(seen.contains(g.edgeId(u, v)));
+                    seen.add(g.edgeId(u, v));
+                }
+            }
+        }
+        assertEquals(13, seen.size());
+        assertEquals("v0", g.getLabel(1));
+
+        g.add();
+        g.add(2, 6);
+        assertNull(g.getLabel(2, 6));
+        assertEquals(14, g.edgeId(2, 6));
+    }
+
+    @Test
+    public void testFrozenGraph() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            g.add();
+        }
+        g.add(1, 3);
+        g.add(1, 2);
+        g.add(3, 3);
+        g.add(4, 1);
+        g.add(2, 4);
+        g.remove(5);
+        g.remove(1, 2);
+
+        FrozenGraph f = new FrozenGraph(g);
+        assertEquals(g.vertexSize(), f.vertexSize());
+        assertEquals(g.maxVertex(), f.maxVertex());
+        assertEquals(g.edgeSize(), f.edgeSize());
+        assertFalse(f.contains(5));
+        for (int v = 1; v <= 5; v += 1) {
+            assertEquals(g.outDegree(v), f.outDegree(v));
+            assertEquals(g.inDegree(v), f.inDegree(v));
+            for (int w = 1; w <= 5; w += 1) {
+                assertEquals(g.contains(v, w), f.contains(v, w));
+                assertEquals(g.edgeId(v, w), f.edgeId(v, w));
+            }
+        }
+        Iteration<Integer> preds = f.predecessors(3);
+        assertEquals(1, (int) preds.next());
+        assertEquals(3, (int) preds.next());
+        assertFalse(preds.hasNext());
+        ArrayList<int[]> edges = new ArrayList<>();
+        for (int[] e : f.edges()) {
+            edges.add(e);
+        }
+        assertEquals(4, edges.size());
+        for (int i = 0; i < edges.size(); i += 1) {
+            int[] e = edges.get(i);
+            assertTrue(g.contains(e[0], e[1]));
+            for (int j = 0; j < i; j += 1) {
+                assertFalse(e[0] == edges.get(j)[0]
+                            && e[1] == edges.get(j)[1]);
+            }
+        }
+
+        try {
+            f.add();
+            fail("frozen graph accepted a new vertex");
+        } catch (UnsupportedOperationException excp) {
+            /* Expected. */
+        }
+
+        UndirectedGraph h = new UndirectedGraph();
+        for (int i = 0; i < 3; i += 1) {
+            h.add();
+        }
+        h.add(3, 1);
+        h.add(2, 2);
+        FrozenGraph fh = new FrozenGraph(h);
+        assertTrue(fh.contains(1, 3));
+        assertEquals(h.edgeId(1, 3), fh.edgeId(3, 1));
+        int n = 0;
+        for (int[] e : fh.edges()) {
+            n += 1;
+        }
+        assertEquals(2, n);
+    }
+
+    @Test
+    public void testFrozenGraphLookup() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 40; i += 1) {
+            g.add();
+        }
+        for (int i = 0; i < 40; i += 1) {
+            int w = 1 + (i * 17) % 40;
+            if (w % 3 != 0) {
+                g.add(7, w);
+            }
+        }
+        FrozenGraph f = new FrozenGraph(g);
+        ArrayList<Integer> expected = new ArrayList<>();
+        ArrayList<Integer> actual = new ArrayList<>();
+        for (int w : g.successors(7)) {
+            expected.add(w);
+        }
+        for (int w : f.successors(7)) {
+            actual.add(w);
+        }
+        assertEquals(expected, actual);
+        for (int w = 0; w <= 41; w += 1) {
+            assertEquals(g.contains(7, w), f.contains(7, w));
+            assertEquals(g.edgeId(7, w), f.edgeId(7, w));
+            assertFalse(f.contains(8, w));
+        }
+    }
+
+    @Test
+    public void testForEachSuccessor() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        g.add(2, 4);
+        g.add(2, 1);
+        g.add(3, 1);
+        g.add(2, 3);
+        Graph[] views = { g, new GraphFilter(g), new FrozenGraph(g) };
+        for (Graph view : views) {
+            ArrayList<Integer> expected = new ArrayList<>();
+            ArrayList<Integer> actual = new ArrayList<>();
+            for (int v : view.successors(2)) {
+                expected.add(v);
+            }
+            view.forEachSuccessor(2, actual::add);
+            assertEquals(expected, actual);
+
+            expected.clear();
+            actual.clear();
+            for (int v : view.predecessors(1)) {
+                expected.add(v);
+            }
+            view.forEachPredecessor(1, actual::add);
+            assertEquals(expected, actual);
+            view.forEachSuccessor(5, actual::add);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testFilteredSearch() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        g.add(1, 4);
+        g.add(1, 2);
+        g.add(2, 3);
+        Graph hidden = new GraphFilter(g) {
+            @Override
+            public Iteration<Integer> successors(int v) {
+                ArrayList<Integer> result = new ArrayList<>();
+                for (int w : super.successors(v)) {
+                    if (v != 1 || w != 4) {
+                        result.add(w);
+                    }
+                }
+                return Iteration.iteration(result.iterator());
+            }
+        };
+
+        Traversal traversal = new BreadthFirstTraversal(hidden);
+        traversal.recordVisits();
+        traversal.traverse(1);
+        ArrayList<Integer> expected = new ArrayList<>();
+        expected.add(1);
+        expected.add(2);
+        expected.add(3);
+        assertEquals(expected, traversal.myVisited());
+
+        ShortestPaths paths = new SimpleShortestPaths(hidden, 1) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return 1.0;
+            }
+        };
+        paths.setPaths();
+        assertEquals(2.0, paths.getWeight(3), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, paths.getWeight(4), 0.0);
+
+        LabeledGraph<Void, Void> labeled = new LabeledGraph<>(hidden);
+        traversal = new DepthFirstTraversal(labeled);
+        traversal.recordVisits();
+        traversal.traverse(1);
+        assertFalse(traversal.myVisited().contains(4));
+    }
+
     @Test
     public void random() {
         DirectedGraph g = new DirectedGraph();
@@ -0,0 +1,137 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.AbstractQueue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** A queue of ints held in a circular array, which removes either its
+ *  oldest item (first-in-first-out) or its newest (last-in-first-out).
+ *  It is a Queue<Integer>, so that it may serve as the fringe of a
+ *  Traversal, but also provides the unboxed operations addInt and
+ *  removeInt, which Traversal uses when it can.
+ *  @author Yuan Xie.
+ */
+class IntDeque extends AbstractQueue<Integer> {
+
+    /** An empty queue that removes items in last-in-first-out order if
+     *  LIFO, and otherwise in first-in-first-out order. */
+    IntDeque(boolean lifo) {
+        _lifo = lifo;
+        _items = new int[INITIAL_CAPACITY];
+    }
+
+    /** Add X to me. */
+    void addInt(int x) {
+        if (_size == _items.length) {
+            int[] items = new int[2 * _items.length];
+            for (int k = 0; k < _size; k += 1) {
+                items[k] = _items[(_head + k) & (_items.length - 1)];
+            }
+            _items = items;
+            _head = 0;
+        }
+        _items[(_head + _size) & (_items.length - 1)] = x;
+        _size += 1;
+        _modifications += 1;
+    }
+
+    /** Remove and return my next item.  Assumes I am not empty. */
+    int removeInt() {
+        int x;
+        _size -= 1;
+        if (_lifo) {
+            x = _items[(_head + _size) & (_items.length - 1)];
+        } else {
+            x = _items[_head];
+            _head = (_head + 1) & (_items.length - 1);
+        }
+        _modifications += 1;
+        return x;
+    }
+
+    @Override
+    public boolean offer(Integer x) {
+        addInt(x);
+        return true;
+    }
+
+    @Override
+    public Integer poll() {
+        return isEmpty() ? null : removeInt();
+    }
+
+    @Override
+    public Integer peek() {
+        if (isEmpty()) {
+            return null;
+        }
+        return _items[(_head + (_lifo ? _size - 1 : 0))
+                      & (_items.length - 1)];
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    @Override
+    public void clear() {
+        _size = 0;
+        _head = 0;
+        _modifications += 1;
+    }
+
+    /** Returns an iterator over my items in the order in which they would
+     *  be removed. */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return _k < _size;
+            }
+
+            @Override
+            public Integer next() {
+                if (_expected != _modifications) {
+                    throw new ConcurrentModificationException();
+                }
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int k = _lifo ? _size - 1 - _k : _k;
+                _k += 1;
+                return _items[(_head + k) & (_items.length - 1)];
+            }
+
+            /** Number of items delivered so far. */
+            private int _k;
+            /** Value of _modifications when I was created. */
+            private final int _expected = _modifications;
+        };
+    }
+
+    /** Initial capacity; must be a power of 2. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** True iff I remove my newest item first. */
+    private final boolean _lifo;
+    /** My items, in _items[_head], _items[_head + 1], ..., wrapping
+     *  around.  The length is always a power of 2. */
+    private int[] _items;
+    /** Position of my oldest item. */
+    private int _head;
+    /** Number of items in me. */
+    private int _size;
+    /** Number of changes made to me, to detect modification during
+     *  iteration. */
+    private int _modifications;
+}
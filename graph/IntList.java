@@ -0,0 +1,123 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** A growable list of primitive ints, used to hold adjacency lists and
+ *  other vertex sequences without boxing each element.
+ *  @author Yuan Xie.
+ */
+class IntList {
+
+    /** An empty list. */
+    IntList() {
+        _items = new int[INITIAL_CAPACITY];
+        _size = 0;
+    }
+
+    /** Returns the number of items in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff I have no items. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns my Kth item, 0 <= K < size(). */
+    int get(int k) {
+        return _items[k];
+    }
+
+    /** Append X to me. */
+    void add(int x) {
+        if (_size == _items.length) {
+            _items = Arrays.copyOf(_items, 2 * _items.length);
+        }
+        _items[_size] = x;
+        _size += 1;
+    }
+
+    /** Returns the index of the first occurrence of X in me, or -1 if X is
+     *  not present. */
+    int indexOf(int x) {
+        for (int i = 0; i < _size; i += 1) {
+            if (_items[i] == x) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Remove the first occurrence of X, if any, preserving the order of the
+     *  remaining items.  Returns true iff X was present. */
+    boolean removeValue(int x) {
+        int k = indexOf(x);
+        if (k < 0) {
+            return false;
+        }
+        System.arraycopy(_items, k + 1, _items, k, _size - k - 1);
+        _size -= 1;
+        return true;
+    }
+
+    /** Remove all but my first N items, 0 <= N <= size(). */
+    void truncate(int n) {
+        _size = n;
+    }
+
+    /** Remove all my items. */
+    void clear() {
+        _size = 0;
+    }
+
+    /** Returns a copy of my items. */
+    int[] toArray() {
+        return Arrays.copyOf(_items, _size);
+    }
+
+    /** Returns an Iteration over a snapshot of my current items, so that
+     *  I may be modified while it is in use. */
+    Iteration<Integer> iteration() {
+        return new IntIteration(toArray());
+    }
+
+    /** An Iteration over the elements of an int array. */
+    private static class IntIteration extends Iteration<Integer> {
+        /** An Iteration over ITEMS. */
+        IntIteration(int[] items) {
+            _items = items;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _items.length;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _items[_k - 1];
+        }
+
+        /** The items I deliver. */
+        private final int[] _items;
+        /** Index of the next item to deliver. */
+        private int _k;
+    }
+
+    /** Capacity of a newly created list. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** My items, in positions [0 .. _size - 1]. */
+    private int[] _items;
+
+    /** Number of items in me. */
+    private int _size;
+}
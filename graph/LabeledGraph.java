@@ -2,10 +2,12 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
 
 /** A Graph whose vertices are labeled with type VL and whose edges are
- *  labeled with type EL.
+ *  labeled with type EL.  As for Graph, several threads may read labels
+ *  at once, but setting them must not overlap with any other use.
  *  @author P. N. Hilfinger
  */
 public class LabeledGraph<VL, EL> extends GraphFilter {
@@ -13,26 +15,30 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
     /** A labeling of the graph G.  Accessors and modifiers of the graph
      *  act upon G.  Attempts to modify the graph structure directly through
      *  G have undefined effects upon the labeled version created by this
-     *  constructor. */
+     *  constructor.  The searches in this package follow G's edges
+     *  directly, so to search a filtered graph, label a GraphFilter that
+     *  does the filtering rather than overriding successors here. */
     public LabeledGraph(Graph G) {
         super(G);
     }
 
     /** Returns the label on vertex V, which must be one of my
      *  vertices. */
+    @SuppressWarnings("unchecked")
     public VL getLabel(int v) {
         checkMyVertex(v);
-        return v < _vlabel.size() ? _vlabel.get(v) : null;
+        return v < _vlabel.length ? (VL) _vlabel[v] : null;
     }
 
     /** Returns the label on the edge (U, V), which must be one of
      *  my edges. */
+    @SuppressWarnings("unchecked")
     public EL getLabel(int u, int v) {
         int e = edgeId(u, v);
         if (e == 0) {
             throw new IllegalArgumentException("no such edge");
         }
-        return e < _elabel.size() ? _elabel.get(e) : null;
+        return e < _elabel.length ? (EL) _elabel[e] : null;
     }
 
     /** Return the successor of vertex U along the edge labeled LAB, if any,
@@ -50,9 +56,9 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
     /** Set getVertexLabel(V) to LAB.  V must be one of my vertices. */
     public void setLabel(int v, VL lab) {
         checkMyVertex(v);
-        if (lab != null || v < _vlabel.size()) {
-            expand(_vlabel, v + 1);
-            _vlabel.set(v, lab);
+        if (lab != null || v < _vlabel.length) {
+            _vlabel = expand(_vlabel, v + 1);
+            _vlabel[v] = lab;
         }
     }
 
@@ -62,9 +68,9 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         if (e == 0) {
             throw new IllegalArgumentException("no such edge");
         }
-        if (lab != null || e < _elabel.size()) {
-            expand(_elabel, e + 1);
-            _elabel.set(e, lab);
+        if (lab != null || e < _elabel.length) {
+            _elabel = expand(_elabel, e + 1);
+            _elabel[e] = lab;
         }
     }
 
@@ -82,18 +88,22 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
      *  an edge (U, V), sets its label to EL. */
     public int add(int u, int v, EL lab) {
         int e = add(u, v);
-        if (lab != null || e < _elabel.size()) {
-            expand(_elabel, e + 1);
-            _elabel.set(e, lab);
+        if (lab != null || e < _elabel.length) {
+            _elabel = expand(_elabel, e + 1);
+            _elabel[e] = lab;
         }
         return e;
     }
 
     @Override
     public void remove(int v) {
+        if (contains(v)) {
+            forEachSuccessor(v, (w) -> clearLabel(edgeId(v, w)));
+            forEachPredecessor(v, (u) -> clearLabel(edgeId(u, v)));
+        }
         super.remove(v);
-        if (v < _vlabel.size()) {
-            _vlabel.set(v, null);
+        if (v < _vlabel.length) {
+            _vlabel[v] = null;
         }
     }
 
@@ -102,22 +112,61 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         int e = edgeId(u, v);
         if (e != 0) {
             super.remove(u, v);
-            if (e < _elabel.size()) {
-                _elabel.set(e, null);
+            clearLabel(e);
+        }
+    }
+
+    @Override
+    void forEachSuccessor(int v, IntConsumer action) {
+        base().forEachSuccessor(v, action);
+    }
+
+    @Override
+    void forEachPredecessor(int v, IntConsumer action) {
+        base().forEachPredecessor(v, action);
+    }
+
+    /** Renumber my edges densely, so that the space taken by edge labels
+     *  is proportional to the number of edges I now have, rather than to
+     *  the number I have ever had.  Labels stay with their edges.  Returns
+     *  an array mapping each old edge id to its new one (0 for ids of no
+     *  edge), or null if the underlying graph cannot renumber its edges,
+     *  in which case nothing changes.  Subclasses that keep their own
+     *  tables indexed by edge id remap them using the result. */
+    public int[] compact() {
+        int[] ids = compactEdges();
+        if (ids != null) {
+            Object[] labels = new Object[edgeSize() + 1];
+            int n = Math.min(ids.length, _elabel.length);
+            for (int e = 1; e < n; e += 1) {
+                if (ids[e] != 0) {
+                    labels[ids[e]] = _elabel[e];
+                }
             }
+            _elabel = labels;
+        }
+        return ids;
+    }
+
+    /** Remove the label, if any, of the edge whose id is E. */
+    private void clearLabel(int e) {
+        if (e < _elabel.length) {
+            _elabel[e] = null;
         }
     }
 
-    /** If necessary, add nulls to L to make its length N.  Has no effect if
-     *  L's length is already at least N. */
-    static void expand(ArrayList<?> L, int n) {
-        while (L.size() < n) {
-            L.add(null);
+    /** Returns L if its length is at least N, and otherwise a copy of L
+     *  padded with nulls to at least twice its length and at least N, so
+     *  that a sequence of expansions takes linear time in all. */
+    static Object[] expand(Object[] L, int n) {
+        if (L.length >= n) {
+            return L;
         }
+        return Arrays.copyOf(L, Math.max(n, 2 * L.length));
     }
 
     /** Mapping of vertex numbers to vertex labels. */
-    private final ArrayList<VL> _vlabel = new ArrayList<>();
+    private Object[] _vlabel = new Object[0];
     /** Mapping of unique edge ids to edge labels. */
-    private final ArrayList<EL> _elabel = new ArrayList<>();
+    private Object[] _elabel = new Object[0];
 }
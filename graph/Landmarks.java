@@ -0,0 +1,208 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/** Lower bounds on shortest-path distances in an edge-weighted graph,
+ *  computed from a few landmark vertices (the ALT method).  For each
+ *  landmark L, preprocessing (compute) records the distances from L to
+ *  every vertex and from every vertex to L.  The triangle inequality then
+ *  gives, for any vertices V and T,
+ *      dist(V, T) >= dist(L, T) - dist(L, V)  and
+ *      dist(V, T) >= dist(V, L) - dist(T, L),
+ *  and lowerBound returns the largest of these over all landmarks.  The
+ *  bound is consistent, so it may serve as ShortestPaths.estimatedDistance
+ *  (with T the destination) and, with the arguments reversed, as
+ *  estimatedSourceDistance.
+ *
+ *  Landmarks are chosen greedily, each as far as possible from those
+ *  already chosen.  The client supplies the edge weights by overriding
+ *  getWeight.  The bounds are valid only as long as the graph and its
+ *  weights do not change.
+ *  @author Yuan Xie.
+ */
+public abstract class Landmarks {
+
+    /** Landmark bounds for G, using (at most) K landmarks.  Must be
+     *  computed before use. */
+    public Landmarks(Graph G, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("negative landmark count");
+        }
+        _G = G;
+        _k = k;
+        _landmarks = new int[0];
+        _from = _to = new double[0][];
+    }
+
+    /** Returns the weight of edge (U, V) in the graph, which must be
+     *  non-negative, or positive infinity if there is no such edge. */
+    protected abstract double getWeight(int u, int v);
+
+    /** Choose the landmarks and compute their distance tables.  Must be
+     *  called before lowerBound. */
+    public void compute() {
+        int k = Math.min(_k, _G.vertexSize());
+        int n = _G.maxVertex();
+        _landmarks = new int[k];
+        _from = new double[k][];
+        _to = new double[k][];
+        if (k == 0) {
+            return;
+        }
+
+        double[] nearest = new double[n + 1];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int next = farthest(distancesFrom(_G.vertices().next()), nearest);
+        int i;
+        for (i = 0; i < k && next != 0; i += 1) {
+            _landmarks[i] = next;
+            _from[i] = distancesFrom(next);
+            _to[i] = distancesTo(next);
+            for (int v = 1; v <= n; v += 1) {
+                nearest[v] = Math.min(nearest[v], _from[i][v]);
+            }
+            next = farthest(nearest, nearest);
+        }
+        _landmarks = Arrays.copyOf(_landmarks, i);
+        _from = Arrays.copyOf(_from, i);
+        _to = Arrays.copyOf(_to, i);
+    }
+
+    /** Returns the landmarks chosen by compute. */
+    public int[] landmarks() {
+        return _landmarks.clone();
+    }
+
+    /** Returns a lower bound on the weight of the shortest path from V to
+     *  T, which are assumed to be vertices of the graph.  Landmarks that
+     *  cannot reach or be reached from the vertices involved contribute
+     *  nothing, so the bound is 0 if no landmark is useful. */
+    public double lowerBound(int v, int t) {
+        double result = 0.0;
+        for (int i = 0; i < _landmarks.length; i += 1) {
+            double[] from = _from[i], to = _to[i];
+            if (from[v] < Double.POSITIVE_INFINITY
+                && from[t] < Double.POSITIVE_INFINITY) {
+                result = Math.max(result, from[t] - from[v]);
+            }
+            if (to[v] < Double.POSITIVE_INFINITY
+                && to[t] < Double.POSITIVE_INFINITY) {
+                result = Math.max(result, to[v] - to[t]);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the vertex V with the largest positive finite SCORE[V], or
+     *  failing that, the first vertex with an infinite score, or failing
+     *  that, any vertex.  Vertices with NEAREST[V] == 0 (the landmarks and
+     *  any vertices at distance 0 from them) are not considered, and 0 is
+     *  returned if there is no other vertex. */
+    private int farthest(double[] score, double[] nearest) {
+        int result = 0, unreached = 0;
+        for (int v : _G.vertices()) {
+            if (nearest[v] == 0.0) {
+                continue;
+            } else if (score[v] == Double.POSITIVE_INFINITY) {
+                if (unreached == 0) {
+                    unreached = v;
+                }
+            } else if (result == 0 || score[v] > score[result]) {
+                result = v;
+            }
+        }
+        return result != 0 && score[result] > 0.0 ? result
+            : unreached != 0 ? unreached : result;
+    }
+
+    /** Returns the distances from L to every vertex, indexed by vertex. */
+    private double[] distancesFrom(int l) {
+        return distances(new SimpleShortestPaths(_G, l) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return Landmarks.this.getWeight(u, v);
+            }
+        });
+    }
+
+    /** Returns the distances from every vertex to L, indexed by vertex. */
+    private double[] distancesTo(int l) {
+        if (!_G.isDirected()) {
+            return distancesFrom(l);
+        }
+        return distances(new SimpleShortestPaths(new Reversed(_G), l) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return Landmarks.this.getWeight(v, u);
+            }
+        });
+    }
+
+    /** Returns the weights computed by PATHS, indexed by vertex. */
+    private double[] distances(ShortestPaths paths) {
+        double[] result = new double[_G.maxVertex() + 1];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+        paths.setPaths();
+        for (int v : _G.vertices()) {
+            result[v] = paths.getWeight(v);
+        }
+        return result;
+    }
+
+    /** A view of a directed graph with the edges leaving and entering each
+     *  vertex exchanged, sufficient for searching along reversed edges. */
+    private static class Reversed extends GraphFilter {
+        /** The reverse of G. */
+        Reversed(Graph G) {
+            super(G);
+        }
+
+        @Override
+        public boolean contains(int u, int v) {
+            return super.contains(v, u);
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return super.inDegree(v);
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return super.outDegree(v);
+        }
+
+        @Override
+        public Iteration<Integer> successors(int v) {
+            return super.predecessors(v);
+        }
+
+        @Override
+        public Iteration<Integer> predecessors(int v) {
+            return super.successors(v);
+        }
+
+        @Override
+        void forEachSuccessor(int v, IntConsumer action) {
+            base().forEachPredecessor(v, action);
+        }
+
+        @Override
+        void forEachPredecessor(int v, IntConsumer action) {
+            base().forEachSuccessor(v, action);
+        }
+    }
+
+    /** The graph being bounded. */
+    private final Graph _G;
+    /** Requested number of landmarks. */
+    private final int _k;
+    /** The landmarks. */
+    private int[] _landmarks;
+    /** _from[I][V] and _to[I][V] are the distances from landmark I to V and
+     *  from V to landmark I, positive infinity if there is no path. */
+    private double[][] _from, _to;
+}
@@ -0,0 +1,305 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/** A breadth-first traversal of a graph that processes each level of the
+ *  search in parallel on the threads of a ForkJoinPool.  The vertices at
+ *  one distance from the start (the frontier) are divided among tasks,
+ *  which find the vertices at the next distance, each vertex being
+ *  claimed by exactly one task through an atomic bit set.  When the
+ *  frontier grows large relative to the part of the graph still
+ *  unexplored, a level is instead processed "bottom-up": each unclaimed
+ *  vertex looks among its predecessors for one in the frontier, which is
+ *  much cheaper than expanding every edge out of a large frontier.
+ *
+ *  As with BreadthFirstTraversal, the client may extend this class and
+ *  override visit, which is called once for each vertex reached.  Here,
+ *  however, the vertices of a level are visited concurrently and in no
+ *  particular order, so visit must be safe to call from several threads.
+ *  After a traversal, depth gives the number of edges on a shortest path
+ *  to each vertex reached.  Traversals may be repeated from other
+ *  vertices, and remember the vertices already reached until clear is
+ *  called.  The graph must not change during a traversal (see Graph).
+ *  @author Yuan Xie.
+ */
+public class ParallelBreadthFirstTraversal {
+
+    /** A parallel breadth-first traversal of G using the common
+     *  ForkJoinPool. */
+    public ParallelBreadthFirstTraversal(Graph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /** A parallel breadth-first traversal of G using the threads of
+     *  POOL. */
+    public ParallelBreadthFirstTraversal(Graph G, ForkJoinPool pool) {
+        _G = G;
+        _pool = pool;
+        _depth = new int[0];
+        _claimed = new AtomicLongArray(0);
+    }
+
+    /** Forget all vertices reached so far. */
+    public void clear() {
+        Arrays.fill(_depth, -1);
+        _claimed = new AtomicLongArray(_claimed.length());
+    }
+
+    /** Perform a traversal starting from { V0 }. */
+    public void traverse(int v0) {
+        traverse(Arrays.<Integer>asList(v0));
+    }
+
+    /** Perform a traversal starting from the vertices in V0, which are at
+     *  depth 0.  Vertices reached by previous traversals are not visited
+     *  again. */
+    public void traverse(Collection<Integer> V0) {
+        ensureCapacity(_G.maxVertex());
+        long unexplored = 0;
+        for (int v : _G.vertices()) {
+            if (_depth[v] < 0) {
+                unexplored += _G.outDegree(v);
+            }
+        }
+        IntList frontier = new IntList();
+        for (int v : V0) {
+            _G.checkMyVertex(v);
+            if (claim(v)) {
+                _depth[v] = 0;
+                frontier.add(v);
+            }
+        }
+
+        _stopped = false;
+        boolean bottomUp = false;
+        for (int level = 0; !frontier.isEmpty(); level += 1) {
+            long frontierEdges = 0;
+            for (int k = 0; k < frontier.size(); k += 1) {
+                frontierEdges += _G.outDegree(frontier.get(k));
+            }
+            unexplored -= frontierEdges;
+            if (!bottomUp) {
+                bottomUp = frontierEdges > unexplored / ALPHA;
+            } else {
+                bottomUp = frontier.size() > _G.vertexSize() / BETA;
+            }
+
+            int[] current = frontier.toArray();
+            long[] members = null;
+            int size = current.length;
+            if (bottomUp) {
+                size = _G.maxVertex() + 1;
+                members = new long[(size >> LOG_WORD_SIZE) + 1];
+                for (int v : current) {
+                    members[v >> LOG_WORD_SIZE] |= 1L << v;
+                }
+            }
+            frontier = _pool.invoke(new Level(current, members, level,
+                                              0, size));
+            if (_stopped) {
+                break;
+            }
+        }
+    }
+
+    /** Returns true iff V has been reached. */
+    public boolean marked(int v) {
+        return depth(v) >= 0;
+    }
+
+    /** Returns the number of edges on a shortest path to V from the
+     *  starting vertices of the traversal that reached V, or -1 if V has
+     *  not been reached. */
+    public int depth(int v) {
+        return v > 0 && v < _depth.length ? _depth[v] : -1;
+    }
+
+    /** Perform a visit on vertex V.  Returns false iff the traversal is to
+     *  terminate once the current level is done.  Called concurrently for
+     *  the vertices of each level. */
+    protected boolean visit(int v) {
+        return true;
+    }
+
+    /** Make room for vertices up to MAXVERTEX. */
+    private void ensureCapacity(int maxVertex) {
+        if (maxVertex >= _depth.length) {
+            int n = _depth.length;
+            _depth = Arrays.copyOf(_depth, maxVertex + 1);
+            Arrays.fill(_depth, n, _depth.length, -1);
+            AtomicLongArray claimed =
+                new AtomicLongArray((maxVertex >> LOG_WORD_SIZE) + 1);
+            for (int i = 0; i < _claimed.length(); i += 1) {
+                claimed.set(i, _claimed.get(i));
+            }
+            _claimed = claimed;
+        }
+    }
+
+    /** Mark V as reached, returning true iff it was not already. */
+    private boolean claim(int v) {
+        int w = v >> LOG_WORD_SIZE;
+        long bit = 1L << (v & (WORD_SIZE - 1));
+        while (true) {
+            long old = _claimed.get(w);
+            if ((old & bit) != 0) {
+                return false;
+            } else if (_claimed.compareAndSet(w, old, old | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /** The task of processing part of one level of the traversal, which
+     *  returns the vertices it finds for the next level. */
+    private class Level extends RecursiveTask<IntList> {
+        /** Process positions LOW .. HIGH - 1 of the level whose vertices,
+         *  at depth LEVEL, are FRONTIER.  MEMBERS is null if working
+         *  top-down, and positions are then indices into FRONTIER.
+         *  Otherwise, positions are vertex numbers, and bit V of MEMBERS
+         *  is set iff V is in FRONTIER. */
+        Level(int[] frontier, long[] members, int level,
+              int low, int high) {
+            _frontier = frontier;
+            _members = members;
+            _level = level;
+            _bottomUp = members != null;
+            _low = low;
+            _high = high;
+        }
+
+        @Override
+        protected IntList compute() {
+            int grain = _bottomUp ? BOTTOM_UP_GRAIN : TOP_DOWN_GRAIN;
+            if (_high - _low > grain) {
+                int mid = (_low + _high) >>> 1;
+                Level right = new Level(_frontier, _members, _level,
+                                        mid, _high);
+                right.fork();
+                IntList result = new Level(_frontier, _members, _level,
+                                           _low, mid).compute();
+                IntList rest = right.join();
+                for (int k = 0; k < rest.size(); k += 1) {
+                    result.add(rest.get(k));
+                }
+                return result;
+            }
+
+            IntList next = new IntList();
+            if (_bottomUp) {
+                bottomUp(next);
+            } else {
+                topDown(next);
+            }
+            return next;
+        }
+
+        /** Visit the frontier vertices at positions _low .. _high - 1 of
+         *  _frontier, and add their unclaimed successors to NEXT. */
+        private void topDown(IntList next) {
+            for (int k = _low; k < _high; k += 1) {
+                if (!visit(_frontier[k])) {
+                    _stopped = true;
+                }
+            }
+            if (_stopped) {
+                return;
+            }
+            IntConsumer expand = (v) -> {
+                if (claim(v)) {
+                    _depth[v] = _level + 1;
+                    next.add(v);
+                }
+            };
+            for (int k = _low; k < _high; k += 1) {
+                _G.forEachSuccessor(_frontier[k], expand);
+            }
+        }
+
+        /** Visit the frontier vertices among _low .. _high - 1, and add
+         *  those unclaimed vertices in that range that have a predecessor
+         *  in the frontier to NEXT. */
+        private void bottomUp(IntList next) {
+            int low = Math.max(_low, 1);
+            for (int v = low; v < _high; v += 1) {
+                if (inFrontier(v) && !visit(v)) {
+                    _stopped = true;
+                }
+            }
+            if (_stopped) {
+                return;
+            }
+            IntConsumer check = (u) -> {
+                if (inFrontier(u)) {
+                    _found = true;
+                }
+            };
+            for (int v = low; v < _high; v += 1) {
+                if (_depth[v] < 0 && _G.contains(v)) {
+                    _found = false;
+                    _G.forEachPredecessor(v, check);
+                    if (_found && claim(v)) {
+                        _depth[v] = _level + 1;
+                        next.add(v);
+                    }
+                }
+            }
+        }
+
+        /** Returns true iff V is in the frontier of this bottom-up
+         *  level. */
+        private boolean inFrontier(int v) {
+            return (_members[v >> LOG_WORD_SIZE] & (1L << v)) != 0;
+        }
+
+        /** The vertices at depth _level. */
+        private final int[] _frontier;
+        /** When working bottom-up, the vertices of _frontier as a bit
+         *  set; otherwise null.  Since _depth also records vertices
+         *  reached by earlier traversals, it cannot tell which belong to
+         *  this one. */
+        private final long[] _members;
+        /** The depth of the frontier. */
+        private final int _level;
+        /** True iff processing this level bottom-up. */
+        private final boolean _bottomUp;
+        /** The range of positions to process. */
+        private final int _low, _high;
+        /** Set by bottomUp when it finds a predecessor in the
+         *  frontier. */
+        private boolean _found;
+    }
+
+    /** The graph being traversed. */
+    private final Graph _G;
+    /** The threads that do the work. */
+    private final ForkJoinPool _pool;
+    /** _depth[V] is the depth at which V was reached, or -1. */
+    private int[] _depth;
+    /** Bit V is set iff V has been reached. */
+    private AtomicLongArray _claimed;
+    /** Set when a visit asks for the traversal to stop. */
+    private volatile boolean _stopped;
+
+    /** Base-2 logarithm of the number of bits in a word of _claimed. */
+    private static final int LOG_WORD_SIZE = 6;
+    /** Number of bits in a word of _claimed. */
+    private static final int WORD_SIZE = 1 << LOG_WORD_SIZE;
+    /** Largest number of frontier vertices expanded by one task. */
+    private static final int TOP_DOWN_GRAIN = 512;
+    /** Largest number of vertices examined by one bottom-up task. */
+    private static final int BOTTOM_UP_GRAIN = 4096;
+    /** Switch to bottom-up once the edges out of the frontier exceed
+     *  1/ALPHA of those out of the unexplored vertices. */
+    private static final int ALPHA = 14;
+    /** Switch back to top-down once the frontier falls below 1/BETA of
+     *  the vertices. */
+    private static final int BETA = 24;
+}
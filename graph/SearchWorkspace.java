@@ -0,0 +1,123 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** Scratch storage for a sequence of shortest-path searches: a weight and
+ *  a predecessor for each vertex, and a fringe.  Rather than clearing its
+ *  tables before each search, a workspace stamps each entry with the
+ *  number of the search that wrote it, and treats entries with an older
+ *  stamp as unset.  Starting a search therefore takes constant time, no
+ *  matter how many vertices the previous one touched, and the tables grow
+ *  as needed to fit the graph being searched.
+ *
+ *  Passing one workspace to a series of SimpleShortestPaths lets them
+ *  run back to back without allocating or clearing per-vertex arrays.
+ *  A workspace holds the results of only the latest search to use it, so
+ *  the results of a SimpleShortestPaths are lost once setPaths is called
+ *  on another that shares its workspace.  A workspace must not be used
+ *  by more than one thread at a time.
+ *  @author Yuan Xie.
+ */
+public class SearchWorkspace {
+
+    /** An empty workspace. */
+    public SearchWorkspace() {
+        this(0);
+    }
+
+    /** A workspace for searches over vertices 1 .. MAXVERTEX. */
+    public SearchWorkspace(int maxVertex) {
+        _weight = new double[maxVertex + 1];
+        _predecessor = new int[maxVertex + 1];
+        _stamp = new int[maxVertex + 1];
+        _fringe = new VertexHeap(maxVertex);
+        _search = 0;
+    }
+
+    /** Begin a new search over vertices 1 .. MAXVERTEX, in which every
+     *  vertex initially has infinite weight and no predecessor, and the
+     *  fringe is empty. */
+    void start(int maxVertex) {
+        if (maxVertex >= _stamp.length) {
+            int n = Math.max(maxVertex + 1, 2 * _stamp.length);
+            _weight = Arrays.copyOf(_weight, n);
+            _predecessor = Arrays.copyOf(_predecessor, n);
+            _stamp = Arrays.copyOf(_stamp, n);
+        }
+        _fringe.ensureCapacity(maxVertex);
+        _fringe.clear();
+        if (_search == Integer.MAX_VALUE) {
+            Arrays.fill(_stamp, 0);
+            _search = 0;
+        }
+        _search += 1;
+    }
+
+    /** Returns the weight of V in the current search. */
+    double weight(int v) {
+        return _stamp[v] == _search ? _weight[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Returns the predecessor of V in the current search, or 0 if none. */
+    int predecessor(int v) {
+        return _stamp[v] == _search ? _predecessor[v] : 0;
+    }
+
+    /** Set the weight of V to W and its predecessor to U. */
+    void set(int v, double w, int u) {
+        _stamp[v] = _search;
+        _weight[v] = w;
+        _predecessor[v] = u;
+    }
+
+    /** Set the weight of V to W. */
+    void setWeight(int v, double w) {
+        touch(v);
+        _weight[v] = w;
+    }
+
+    /** Set the predecessor of V to U. */
+    void setPredecessor(int v, int u) {
+        touch(v);
+        _predecessor[v] = u;
+    }
+
+    /** Returns the fringe of the current search. */
+    VertexHeap fringe() {
+        return _fringe;
+    }
+
+    /** Returns a second workspace that accompanies me, for use by the
+     *  backward half of a bidirectional search. */
+    SearchWorkspace partner() {
+        if (_partner == null) {
+            _partner = new SearchWorkspace(_stamp.length - 1);
+        }
+        return _partner;
+    }
+
+    /** Give V its initial weight and predecessor in the current search, if
+     *  it has not yet been set. */
+    private void touch(int v) {
+        if (_stamp[v] != _search) {
+            _stamp[v] = _search;
+            _weight[v] = Double.POSITIVE_INFINITY;
+            _predecessor[v] = 0;
+        }
+    }
+
+    /** Weights of the vertices, valid where _stamp equals _search. */
+    private double[] _weight;
+    /** Predecessors of the vertices, valid where _stamp equals _search. */
+    private int[] _predecessor;
+    /** _stamp[V] is the number of the last search to set V. */
+    private int[] _stamp;
+    /** Number of the current search. */
+    private int _search;
+    /** Fringe of the current search. */
+    private final VertexHeap _fringe;
+    /** My partner, or null if it has not been needed. */
+    private SearchWorkspace _partner;
+}
@@ -3,15 +3,18 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.function.IntConsumer;
 
 /** The shortest paths through an edge-weighted graph.
  *  By overriding methods getWeight, setWeight, getPredecessor, and
  *  setPredecessor, the client can determine how to represent the weighting
  *  and the search results.  By overriding estimatedDistance, clients
- *  can search for paths to specific destinations using A* search.
+ *  can search for paths to specific destinations using A* search.  By
+ *  overriding searchBidirectionally (and, optionally,
+ *  estimatedSourceDistance), clients can have point-to-point searches
+ *  proceed from both ends at once.
  *  @author Yuan Xie.
  */
 public abstract class ShortestPaths {
@@ -31,32 +34,61 @@ public abstract class ShortestPaths {
     /** Initialize the shortest paths.  Must be called before using
      *  getWeight, getPredecessor, and pathTo. */
     public void setPaths() {
-        for (int v: _G.vertices()) {
-            setWeight(v, Double.POSITIVE_INFINITY);
-            setPredecessor(v, 0);
-        }
+        initializePaths();
+        SearchWorkspace work = workspace();
+        work.start(_G.maxVertex());
 
         setWeight(_source, 0);
-        TreeSet<Integer> fringe = new TreeSet<>(new CustomComparator());
-        fringe.add(_source);
+        _settled = 0;
+        if (_dest != 0 && searchBidirectionally()) {
+            new BidirectionalSearch(work.partner()).run(work.fringe());
+            return;
+        }
+
+        VertexHeap fringe = work.fringe();
+        fringe.update(_source, estimatedDistance(_source));
+        Relaxer relax = new Relaxer(fringe);
 
         while (!fringe.isEmpty()) {
-            int u = fringe.pollFirst();
+            int u = fringe.removeMin();
+            _settled += 1;
             if (u == _dest) {
                 break;
             }
-            for (int v: _G.successors(u)) {
-                double combinedWeight = getWeight(u) + getWeight(u, v);
-                if (combinedWeight < getWeight(v)) {
-                    setWeight(v, combinedWeight);
-                    setPredecessor(v, u);
-                    fringe.remove(v);
-                    fringe.add(v);
-                }
-            }
+            relax._from = u;
+            _G.forEachSuccessor(u, relax);
         }
     }
 
+    /** Set the weight of every vertex to positive infinity and its
+     *  predecessor to 0, in preparation for a search.  By default, this
+     *  visits every vertex in the graph; implementations that can reset
+     *  their results more cheaply should override it. */
+    protected void initializePaths() {
+        for (int v: _G.vertices()) {
+            setWeight(v, Double.POSITIVE_INFINITY);
+            setPredecessor(v, 0);
+        }
+    }
+
+    /** Returns the workspace whose fringe (and partner's tables and fringe)
+     *  setPaths uses.  setPaths starts a new search in it after calling
+     *  initializePaths.  By default, a workspace made on first use and
+     *  kept for later searches, which start() enlarges if the graph has
+     *  grown. */
+    SearchWorkspace workspace() {
+        if (_workspace == null) {
+            _workspace = new SearchWorkspace(_G.maxVertex());
+        }
+        return _workspace;
+    }
+
+    /** Returns the number of vertices removed from the fringe by the last
+     *  call to setPaths, a measure of the work the search did. */
+    public int settledCount() {
+        return _settled;
+    }
+
     /** Returns the starting vertex. */
     public int getSource() {
         return _source;
@@ -92,18 +124,37 @@ public abstract class ShortestPaths {
      *  not in the graph, returns positive infinity. */
     protected abstract double getWeight(int u, int v);
 
+    /** Return true if setPaths should search from the source and the
+     *  destination at the same time, meeting in the middle.  Only used if
+     *  there is a destination.  In that case, only the path to the
+     *  destination (and the weights and predecessors along it) are valid
+     *  afterwards.  False by default. */
+    protected boolean searchBidirectionally() {
+        return false;
+    }
+
+    /** Returns an estimated heuristic weight of the shortest path from the
+     *  starting vertex to V, used by bidirectional searches.  Like
+     *  estimatedDistance, this is assumed to be less than the actual
+     *  weight, and is 0 by default.  For a bidirectional search to find
+     *  shortest paths, both estimates must be consistent: the estimate at
+     *  one end of any edge may exceed that at the other end by at most the
+     *  edge's weight. */
+    protected double estimatedSourceDistance(int v) {
+        return 0.0;
+    }
+
     /** Returns a list of vertices starting at _source and ending
      *  at V that represents a shortest path to V.  Invalid if there is a
      *  destination vertex other than V. */
     public List<Integer> pathTo(int v) {
         ArrayList<Integer> result = new ArrayList<>();
         result.add(v);
-        int predecessor = getPredecessor(v);
-        while (predecessor != _source) {
-            result.add(0, predecessor);
-            predecessor = getPredecessor(predecessor);
+        while (v != _source) {
+            v = getPredecessor(v);
+            result.add(v);
         }
-        result.add(0, predecessor);
+        Collections.reverse(result);
         return result;
     }
 
@@ -122,22 +173,144 @@ public abstract class ShortestPaths {
     /** The target vertex. */
     private final int _dest;
 
-    /** A CustomComparator for the TreeSet that orders the set based on
-     *  the sum of getWeight and estimatedDistance. If estimatedDistance
-     *  is 0.0, gives Dijkstra's. */
-    class CustomComparator implements Comparator<Integer> {
+    /** Number of vertices settled by the last call to setPaths. */
+    private int _settled;
+
+    /** The workspace returned by default by workspace(), or null if it
+     *  has not yet been needed. */
+    private SearchWorkspace _workspace;
+
+    /** A bidirectional A* search from _source to _dest.  The forward
+     *  search uses getWeight and setWeight and works over successors; the
+     *  backward search keeps its own weights and works over predecessors.
+     *  Both are ordered by the average of the two estimates (the forward
+     *  potential (estimatedDistance(V) - estimatedSourceDistance(V)) / 2
+     *  and its negation), which keeps the two searches consistent with
+     *  each other.  The search stops once the smallest forward and
+     *  backward priorities sum to at least the length of the best path
+     *  seen so far. */
+    private class BidirectionalSearch {
 
+        /** A search over the current contents of _G, keeping the state of
+         *  the backward search in BACKWARD. */
+        BidirectionalSearch(SearchWorkspace backward) {
+            backward.start(_G.maxVertex());
+            _back = backward;
+            _backward = backward.fringe();
+            _best = Double.POSITIVE_INFINITY;
+        }
+
+        /** Perform the search, using FORWARD as the fringe of the forward
+         *  search, and set the weights and predecessors along the path
+         *  found. */
+        void run(VertexHeap forward) {
+            _forward = forward;
+            _back.set(_dest, 0.0, 0);
+            _forward.update(_source, potential(_source));
+            _backward.update(_dest, -potential(_dest));
+            if (_source == _dest) {
+                _meeting = _source;
+                _best = 0.0;
+            }
+
+            IntConsumer relaxForward = this::relaxForward;
+            IntConsumer relaxBackward = this::relaxBackward;
+            while (!_forward.isEmpty() && !_backward.isEmpty()
+                   && _forward.minPriority() + _backward.minPriority()
+                      < _best) {
+                if (_forward.size() <= _backward.size()) {
+                    _from = _forward.removeMin();
+                    _settled += 1;
+                    _G.forEachSuccessor(_from, relaxForward);
+                } else {
+                    _from = _backward.removeMin();
+                    _settled += 1;
+                    _G.forEachPredecessor(_from, relaxBackward);
+                }
+            }
+
+            if (_meeting != 0) {
+                for (int u = _meeting; u != _dest;
+                     u = _back.predecessor(u)) {
+                    int v = _back.predecessor(u);
+                    setPredecessor(v, u);
+                    setWeight(v, getWeight(u) + getWeight(u, v));
+                }
+            }
+        }
+
+        /** Relax the edge (_from, V) in the forward search. */
+        private void relaxForward(int v) {
+            double w = getWeight(_from) + getWeight(_from, v);
+            if (w < getWeight(v)) {
+                setWeight(v, w);
+                setPredecessor(v, _from);
+                _forward.update(v, w + potential(v));
+                if (w + _back.weight(v) < _best) {
+                    _best = w + _back.weight(v);
+                    _meeting = v;
+                }
+            }
+        }
+
+        /** Relax the edge (U, _from) in the backward search. */
+        private void relaxBackward(int u) {
+            double w = _back.weight(_from) + getWeight(u, _from);
+            if (w < _back.weight(u)) {
+                _back.set(u, w, _from);
+                _backward.update(u, w - potential(u));
+                if (getWeight(u) + w < _best) {
+                    _best = getWeight(u) + w;
+                    _meeting = u;
+                }
+            }
+        }
+
+        /** Returns the forward potential of V. */
+        private double potential(int v) {
+            return (estimatedDistance(v) - estimatedSourceDistance(v)) / 2;
+        }
+
+        /** Weights of the shortest paths found so far from each vertex to
+         *  _dest, with the successor of each vertex on its path as its
+         *  predecessor. */
+        private final SearchWorkspace _back;
+        /** Fringe of the forward search. */
+        private VertexHeap _forward;
+        /** Fringe of the backward search. */
+        private final VertexHeap _backward;
+        /** The vertex being settled. */
+        private int _from;
+        /** Length of the shortest path found so far. */
+        private double _best;
+        /** A vertex on the shortest path found so far, or 0 if none. */
+        private int _meeting;
+    }
+
+    /** Relaxes the edges leaving a vertex being settled by setPaths. */
+    private class Relaxer implements IntConsumer {
+        /** A Relaxer that adds improved vertices to FRINGE. */
+        Relaxer(VertexHeap fringe) {
+            _fringe = fringe;
+        }
+
+        /** Relax the edge (_from, V). */
         @Override
-        public int compare(Integer u, Integer v) {
-            double uEstimate = getWeight(u) + estimatedDistance(u);
-            double vEstimate = getWeight(v) + estimatedDistance(v);
-
-            if (uEstimate <= vEstimate) {
-                return -1;
-            } else {
-                return 1;
+        public void accept(int v) {
+            double combinedWeight = getWeight(_from) + getWeight(_from, v);
+            if (combinedWeight < getWeight(v)) {
+                setWeight(v, combinedWeight);
+                setPredecessor(v, _from);
+                _fringe.update(v, combinedWeight + estimatedDistance(v));
             }
         }
+
+        /** The vertex whose outgoing edges are being relaxed. */
+        private int _from;
+        /** The fringe of the search, ordered by the sum of getWeight and
+         *  estimatedDistance, so that if estimatedDistance is 0.0, this
+         *  gives Dijkstra's algorithm. */
+        private final VertexHeap _fringe;
     }
 
 }
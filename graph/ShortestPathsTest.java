@@ -0,0 +1,496 @@
+package graph;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/** Unit tests for the ShortestPaths classes.
+ *  @author Yuan Xie.
+ */
+public class ShortestPathsTest {
+
+    /** Shortest paths over a graph whose edges are labeled with their
+     *  weights. */
+    static class WeightedPaths extends SimpleShortestPaths {
+        /** Paths in G from SOURCE to DEST. */
+        WeightedPaths(LabeledGraph<?, Double> G, int source, int dest) {
+            super(G, source, dest);
+            _weighted = G;
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            if (!_weighted.contains(u, v)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return _weighted.getLabel(u, v);
+        }
+
+        /** The graph being searched. */
+        private final LabeledGraph<?, Double> _weighted;
+    }
+
+    /** Returns a random directed graph with N vertices and E edges whose
+     *  weights are integers in [1 .. 20], using RANDOM. */
+    static LabeledGraph<Void, Double> randomGraph(int n, int e,
+                                                  Random random) {
+        LabeledGraph<Void, Double> G =
+            new LabeledGraph<>(new DirectedGraph());
+        for (int i = 0; i < n; i += 1) {
+            G.add();
+        }
+        for (int i = 0; i < e; i += 1) {
+            G.add(1 + random.nextInt(n), 1 + random.nextInt(n),
+                  (double) (1 + random.nextInt(20)));
+        }
+        return G;
+    }
+
+    /** Returns the shortest distances from SOURCE in G computed by
+     *  Bellman-Ford, indexed by vertex. */
+    static double[] bellmanFord(LabeledGraph<Void, Double> G, int source) {
+        double[] dist = new double[G.maxVertex() + 1];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0;
+        for (int i = 0; i < G.vertexSize(); i += 1) {
+            for (int[] e : G.edges()) {
+                double d = dist[e[0]] + G.getLabel(e[0], e[1]);
+                if (d < dist[e[1]]) {
+                    dist[e[1]] = d;
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Returns the total weight of PATH in G. */
+    static double pathWeight(LabeledGraph<Void, Double> G,
+                             List<Integer> path) {
+        double result = 0;
+        for (int i = 1; i < path.size(); i += 1) {
+            result += G.getLabel(path.get(i - 1), path.get(i));
+        }
+        return result;
+    }
+
+    /** Bidirectional shortest paths over a graph whose vertices are points
+     *  in the plane, using straight-line distances as estimates. */
+    static class PlanarPaths extends WeightedPaths {
+        /** Paths in G, whose vertices lie at (X[V], Y[V]), from SOURCE to
+         *  DEST. */
+        PlanarPaths(LabeledGraph<?, Double> G, double[] x, double[] y,
+                    int source, int dest) {
+            super(G, source, dest);
+            _x = x;
+            _y = y;
+        }
+
+        @Override
+        protected boolean searchBidirectionally() {
+            return true;
+        }
+
+        @Override
+        protected double estimatedDistance(int v) {
+            return Math.hypot(_x[v] - _x[getDest()], _y[v] - _y[getDest()]);
+        }
+
+        @Override
+        protected double estimatedSourceDistance(int v) {
+            return Math.hypot(_x[v] - _x[getSource()],
+                              _y[v] - _y[getSource()]);
+        }
+
+        /** Vertex coordinates. */
+        private final double[] _x, _y;
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        LabeledGraph<Void, Double> G =
+            new LabeledGraph<>(new DirectedGraph());
+        for (int i = 0; i < 5; i += 1) {
+            G.add();
+        }
+        G.add(1, 4, 10.0);
+        G.add(1, 2, 1.0);
+        G.add(2, 3, 1.0);
+        G.add(3, 4, 1.0);
+        G.add(4, 5, 1.0);
+        WeightedPaths paths = new WeightedPaths(G, 1, 0);
+        paths.setPaths();
+        assertEquals(3.0, paths.getWeight(4), 0.0);
+        assertEquals(4.0, paths.getWeight(5), 0.0);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), paths.pathTo(5));
+    }
+
+    @Test
+    public void testRandomGraphs() {
+        Random random = new Random(61);
+        for (int trial = 0; trial < 50; trial += 1) {
+            LabeledGraph<Void, Double> G = randomGraph(30, 120, random);
+            double[] expected = bellmanFord(G, 1);
+            WeightedPaths paths = new WeightedPaths(G, 1, 0);
+            paths.setPaths();
+            for (int v = 1; v <= G.maxVertex(); v += 1) {
+                assertEquals(expected[v], paths.getWeight(v), 1e-9);
+                if (v != 1 && expected[v] < Double.POSITIVE_INFINITY) {
+                    assertEquals(expected[v],
+                                 pathWeight(G, paths.pathTo(v)), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBidirectional() {
+        Random random = new Random(1618);
+        for (int trial = 0; trial < 50; trial += 1) {
+            int n = 40;
+            LabeledGraph<Void, Double> G =
+                new LabeledGraph<>(new DirectedGraph());
+            double[] x = new double[n + 1], y = new double[n + 1];
+            for (int v = 1; v <= n; v += 1) {
+                G.add();
+                x[v] = random.nextDouble() * 100;
+                y[v] = random.nextDouble() * 100;
+            }
+            for (int i = 0; i < 160; i += 1) {
+                int u = 1 + random.nextInt(n), v = 1 + random.nextInt(n);
+                G.add(u, v, Math.hypot(x[u] - x[v], y[u] - y[v])
+                      * (1 + random.nextDouble()));
+            }
+            int source = 1 + random.nextInt(n);
+            double[] expected = bellmanFord(G, source);
+            for (int dest = 1; dest <= n; dest += 1) {
+                if (expected[dest] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                PlanarPaths paths = new PlanarPaths(G, x, y, source, dest);
+                paths.setPaths();
+                assertEquals(expected[dest], paths.getWeight(dest), 1e-9);
+                List<Integer> path = paths.pathTo();
+                assertEquals(source, (int) path.get(0));
+                assertEquals(expected[dest], pathWeight(G, path), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testContractionHierarchy() {
+        Random random = new Random(2718);
+        for (int trial = 0; trial < 20; trial += 1) {
+            LabeledGraph<Void, Double> G = randomGraph(60, 200, random);
+            ContractionHierarchy ch = new ContractionHierarchy(G) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return G.getLabel(u, v);
+                }
+            };
+            ch.contract();
+            for (int source = 1; source <= 60; source += 7) {
+                double[] expected = bellmanFord(G, source);
+                for (int dest = 1; dest <= 60; dest += 1) {
+                    assertEquals(expected[dest], ch.distance(source, dest),
+                                 1e-9);
+                    List<Integer> path = ch.path(source, dest);
+                    if (expected[dest] == Double.POSITIVE_INFINITY) {
+                        assertNull(path);
+                    } else {
+                        assertEquals(source, (int) path.get(0));
+                        assertEquals(dest, (int) path.get(path.size() - 1));
+                        assertEquals(expected[dest], pathWeight(G, path),
+                                     1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testContractAgain() {
+        Random random = new Random(2719);
+        LabeledGraph<Void, Double> G = randomGraph(3, 4, random);
+        ContractionHierarchy ch = new ContractionHierarchy(G) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return G.getLabel(u, v);
+            }
+        };
+        ch.contract();
+        ch.distance(1, 2);
+        for (int i = 0; i < 12; i += 1) {
+            G.add();
+        }
+        for (int i = 0; i < 60; i += 1) {
+            G.add(1 + random.nextInt(15), 1 + random.nextInt(15),
+                  (double) (1 + random.nextInt(20)));
+        }
+        try {
+            ch.distance(1, 12);
+            fail("query reached a vertex added after contraction");
+        } catch (IllegalStateException excp) {
+            /* Expected. */
+        }
+        ch.contract();
+        double[] expected = bellmanFord(G, 1);
+        for (int dest = 1; dest <= 15; dest += 1) {
+            assertEquals(expected[dest], ch.distance(1, dest), 1e-9);
+        }
+        int shortcuts = ch.shortcuts();
+        assertTrue(shortcuts > 0);
+        ch.contract();
+        assertEquals(shortcuts, ch.shortcuts());
+        for (int dest = 1; dest <= 15; dest += 1) {
+            assertEquals(expected[dest], ch.distance(1, dest), 1e-9);
+        }
+    }
+
+    @Test
+    public void testLandmarks() {
+        Random random = new Random(1729);
+        int aStarSettled = 0, dijkstraSettled = 0;
+        for (int trial = 0; trial < 20; trial += 1) {
+            LabeledGraph<Void, Double> G = randomGraph(50, 200, random);
+            Landmarks landmarks = new Landmarks(G, 4) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return G.getLabel(u, v);
+                }
+            };
+            landmarks.compute();
+            assertEquals(4, landmarks.landmarks().length);
+            for (int source = 1; source <= 50; source += 5) {
+                double[] expected = bellmanFord(G, source);
+                for (int dest = 1; dest <= 50; dest += 1) {
+                    assertTrue(landmarks.lowerBound(source, dest)
+                               <= expected[dest] + 1e-9);
+                    if (expected[dest] == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    WeightedPaths paths =
+                        new WeightedPaths(G, source, dest) {
+                            @Override
+                            protected double estimatedDistance(int v) {
+                                return landmarks.lowerBound(v, getDest());
+                            }
+                        };
+                    paths.setPaths();
+                    assertEquals(expected[dest], paths.getWeight(dest),
+                                 1e-9);
+                    assertEquals(expected[dest],
+                                 pathWeight(G, paths.pathTo()), 1e-9);
+                    aStarSettled += paths.settledCount();
+                    WeightedPaths plain = new WeightedPaths(G, source, dest);
+                    plain.setPaths();
+                    dijkstraSettled += plain.settledCount();
+                }
+            }
+        }
+        assertTrue(aStarSettled < dijkstraSettled);
+    }
+
+    @Test
+    public void testDistanceMatrix() {
+        Random random = new Random(4669);
+        for (int trial = 0; trial < 20; trial += 1) {
+            LabeledGraph<Void, Double> G = randomGraph(40, 120, random);
+            int[] sources = { 1, 7, 7, 22, 40 };
+            int[] targets = { 3, 1, 18, 3, 39 };
+            DistanceMatrix matrix =
+                new DistanceMatrix(G, sources, targets, true) {
+                    @Override
+                    protected double getWeight(int u, int v) {
+                        return G.getLabel(u, v);
+                    }
+                };
+            matrix.compute();
+            double[][] distances = matrix.distances();
+            for (int i = 0; i < sources.length; i += 1) {
+                double[] expected = bellmanFord(G, sources[i]);
+                for (int j = 0; j < targets.length; j += 1) {
+                    double d = expected[targets[j]];
+                    assertEquals(d, matrix.distance(i, j), 1e-9);
+                    assertEquals(d, distances[i][j], 1e-9);
+                    List<Integer> path = matrix.path(i, j);
+                    if (d == Double.POSITIVE_INFINITY) {
+                        assertNull(path);
+                    } else {
+                        assertEquals(sources[i], (int) path.get(0));
+                        assertEquals(targets[j],
+                                     (int) path.get(path.size() - 1));
+                        assertEquals(d, pathWeight(G, path), 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallelDistanceMatrix() {
+        Random random = new Random(5772);
+        LabeledGraph<Void, Double> G = randomGraph(300, 1500, random);
+        int[] vertices = new int[60];
+        for (int i = 0; i < vertices.length; i += 1) {
+            vertices[i] = 1 + random.nextInt(300);
+        }
+        DistanceMatrix sequential = new DistanceMatrix(G, vertices, vertices) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return G.getLabel(u, v);
+            }
+        };
+        DistanceMatrix parallel =
+            new DistanceMatrix(G, vertices, vertices, true) {
+                @Override
+                protected double getWeight(int u, int v) {
+                    return G.getLabel(u, v);
+                }
+            };
+        sequential.compute();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.compute(pool);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < vertices.length; i += 1) {
+            for (int j = 0; j < vertices.length; j += 1) {
+                double d = sequential.distance(i, j);
+                assertEquals(d, parallel.distance(i, j), 0.0);
+                if (d < Double.POSITIVE_INFINITY) {
+                    assertEquals(d, pathWeight(G, parallel.path(i, j)),
+                                 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSharedWorkspace() {
+        Random random = new Random(1414);
+        SearchWorkspace work = new SearchWorkspace();
+        for (int trial = 0; trial < 30; trial += 1) {
+            LabeledGraph<Void, Double> G =
+                randomGraph(10 + random.nextInt(40), 150, random);
+            for (int k = 0; k < 5; k += 1) {
+                int source = 1 + random.nextInt(G.maxVertex());
+                double[] expected = bellmanFord(G, source);
+                WeightedPaths paths = new WeightedPaths(G, source, 0);
+                SimpleShortestPaths shared =
+                    new SimpleShortestPaths(G, source, 0, work) {
+                        @Override
+                        protected double getWeight(int u, int v) {
+                            return G.getLabel(u, v);
+                        }
+                    };
+                paths.setPaths();
+                shared.setPaths();
+                for (int v = 1; v <= G.maxVertex(); v += 1) {
+                    assertEquals(expected[v], shared.getWeight(v), 1e-9);
+                    assertEquals(paths.getPredecessor(v),
+                                 shared.getPredecessor(v));
+                }
+            }
+        }
+    }
+
+    /** Shortest paths that keep their own tables of weights and
+     *  predecessors, and so use the default workspace only for the
+     *  fringe. */
+    static class TablePaths extends ShortestPaths {
+        /** Paths in G from SOURCE to DEST, searching in both directions
+         *  iff BIDIRECTIONAL. */
+        TablePaths(LabeledGraph<Void, Double> G, int source, int dest,
+                   boolean bidirectional) {
+            super(G, source, dest);
+            _weighted = G;
+            _bidirectional = bidirectional;
+        }
+
+        @Override
+        protected void initializePaths() {
+            _weight = new double[_G.maxVertex() + 1];
+            _pred = new int[_G.maxVertex() + 1];
+            super.initializePaths();
+        }
+
+        @Override
+        public double getWeight(int v) {
+            return _weight[v];
+        }
+
+        @Override
+        protected void setWeight(int v, double w) {
+            _weight[v] = w;
+        }
+
+        @Override
+        public int getPredecessor(int v) {
+            return _pred[v];
+        }
+
+        @Override
+        protected void setPredecessor(int v, int u) {
+            _pred[v] = u;
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            return _weighted.getLabel(u, v);
+        }
+
+        @Override
+        protected boolean searchBidirectionally() {
+            return _bidirectional;
+        }
+
+        /** The graph searched. */
+        private final LabeledGraph<Void, Double> _weighted;
+        /** True iff I search in both directions. */
+        private final boolean _bidirectional;
+        /** Weights and predecessors of the vertices. */
+        private double[] _weight;
+        private int[] _pred;
+    }
+
+    @Test
+    public void testWorkspaceKept() {
+        Random random = new Random(1732);
+        LabeledGraph<Void, Double> G = randomGraph(30, 120, random);
+        for (boolean both : new boolean[] { false, true }) {
+            TablePaths paths = new TablePaths(G, 1, both ? 2 : 0, both);
+            paths.setPaths();
+            SearchWorkspace work = paths.workspace();
+            paths.setPaths();
+            assertSame(work, paths.workspace());
+        }
+
+        TablePaths paths = new TablePaths(G, 1, 0, false);
+        paths.setPaths();
+        SearchWorkspace work = paths.workspace();
+        for (int i = 0; i < 40; i += 1) {
+            G.add();
+        }
+        for (int i = 0; i < 200; i += 1) {
+            G.add(1 + random.nextInt(70), 1 + random.nextInt(70),
+                  (double) (1 + random.nextInt(20)));
+        }
+        paths.setPaths();
+        assertSame(work, paths.workspace());
+        double[] expected = bellmanFord(G, 1);
+        for (int v = 1; v <= G.maxVertex(); v += 1) {
+            assertEquals(expected[v], paths.getWeight(v), 1e-9);
+        }
+        TablePaths toLast = new TablePaths(G, 1, 70, true);
+        toLast.setPaths();
+        toLast.setPaths();
+        assertEquals(expected[70], toLast.getWeight(70), 1e-9);
+    }
+
+}
@@ -4,7 +4,10 @@ package graph;
 
 /** A partial implementation of ShortestPaths that contains the weights of
  *  the vertices and the predecessor edges.   The client needs to
- *  supply only the two-argument getWeight method.
+ *  supply only the two-argument getWeight method.  The weights and
+ *  predecessors are kept in a SearchWorkspace, which may be shared by a
+ *  series of searches, so that each costs time proportional to the part
+ *  of the graph it explores rather than to the size of the graph.
  *  @author Yuan Xie.
  */
 public abstract class SimpleShortestPaths extends ShortestPaths {
@@ -16,9 +19,16 @@ public abstract class SimpleShortestPaths extends ShortestPaths {
 
     /** A shortest path in G from SOURCE to DEST. Fixed. */
     public SimpleShortestPaths(Graph G, int source, int dest) {
+        this(G, source, dest, new SearchWorkspace(G.maxVertex()));
+    }
+
+    /** A shortest path in G from SOURCE to DEST (or the shortest paths
+     *  from SOURCE, if DEST is 0), kept in WORK.  My results are valid
+     *  only until another search is made using WORK. */
+    public SimpleShortestPaths(Graph G, int source, int dest,
+                               SearchWorkspace work) {
         super(G, source, dest);
-        _predecessors = new int[G.maxVertex()];
-        _weights = new double[G.maxVertex()];
+        _work = work;
     }
 
     /** Returns the current weight of edge (U, V) in the graph.  If (U, V) is
@@ -28,29 +38,35 @@ public abstract class SimpleShortestPaths extends ShortestPaths {
 
     @Override
     public double getWeight(int v) {
-        return _weights[v - 1];
+        return _work.weight(v);
     }
 
     @Override
     protected void setWeight(int v, double w) {
-        _weights[v - 1] = w;
+        _work.setWeight(v, w);
     }
 
     @Override
     public int getPredecessor(int v) {
-        return _predecessors[v - 1];
+        return _work.predecessor(v);
     }
 
     @Override
     protected void setPredecessor(int v, int u) {
-        _predecessors[v - 1] = u;
+        _work.setPredecessor(v, u);
     }
 
-    /** Array representing predecessors, where vertex i's predecessor
-     *  is located at index i - 1. */
-    private int[] _predecessors;
+    /** Does nothing, since starting a new search in my workspace (as
+     *  setPaths does) resets all weights and predecessors at once. */
+    @Override
+    protected void initializePaths() {
+    }
+
+    @Override
+    SearchWorkspace workspace() {
+        return _work;
+    }
 
-    /** Array representing the weights of each vertex. Vertex i's weight
-     *  is located at index i - 1. */
-    private double[] _weights;
+    /** Holds the weights and predecessors of the vertices. */
+    private final SearchWorkspace _work;
 }
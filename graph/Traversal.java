@@ -4,8 +4,10 @@ package graph;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Queue;
+import java.util.function.IntConsumer;
 
 /** Implements a generalized traversal of a graph.  At any given time,
  *  there is a particular collection of untraversed vertices---the "fringe."
@@ -23,7 +25,9 @@ import java.util.Queue;
  *  the addition of neighbor vertices to the fringe when a vertex is visited.
  *
  *  Traversals may be interrupted or restarted, remembering the previously
- *  _marked vertices.
+ *  _marked vertices.  Marks and post-visits are recorded in bit sets, so
+ *  checking them takes constant time.  A fringe that is an IntDeque is
+ *  used without boxing its vertices.
  *  @author Yuan Xie.
  */
 public abstract class Traversal {
@@ -32,32 +36,34 @@ public abstract class Traversal {
     protected Traversal(Graph G, Queue<Integer> fringe) {
         _G = G;
         _fringe = fringe;
-        _marked = new ArrayList<>();
-        _visited = new ArrayList<>();
-        _postVisited = new ArrayList<>();
+        _ints = fringe instanceof IntDeque ? (IntDeque) fringe : null;
+        _marked = new BitSet();
+        _postVisited = new BitSet();
+        _successorProcessor = (v) -> {
+            if (processSuccessor(_expanding, v)) {
+                push(v);
+            }
+        };
     }
 
     /** Unmark all vertices in the graph. */
     public void clear() {
-        _marked = new ArrayList<>();
+        _marked.clear();
     }
 
     /** Initialize the fringe to V0 and perform a traversal. */
     public void traverse(Collection<Integer> V0) {
         _fringe.addAll(V0);
         while (!_fringe.isEmpty()) {
-            int v = _fringe.remove();
+            int v = pop();
             if (!marked(v)) {
-                mark(v);
-                visit(v);
-                _visited.add(v);
+                start(v);
                 if (shouldPostVisit(v)) {
-                    _fringe.add(v);
+                    push(v);
                 }
                 processSuccessors(v);
-            } else if (shouldPostVisit(v) && !_postVisited.contains(v)) {
-                postVisit(v);
-                _postVisited.add(v);
+            } else if (shouldPostVisit(v)) {
+                finish(v);
             }
         }
     }
@@ -69,12 +75,12 @@ public abstract class Traversal {
 
     /** Returns true iff V has been _marked. */
     protected boolean marked(int v) {
-        return _marked.contains(v);
+        return _marked.get(v);
     }
 
     /** Mark vertex V. */
     protected void mark(int v) {
-        _marked.add(v);
+        _marked.set(v);
     }
 
     /** Perform a visit on vertex V.  Returns false iff the traversal is to
@@ -106,11 +112,8 @@ public abstract class Traversal {
      *  default implementation simply processes each successor using
      *  processSuccessor. */
     protected void processSuccessors(int u) {
-        for (int v : _G.successors(u)) {
-            if (processSuccessor(u, v)) {
-                _fringe.add(v);
-            }
-        }
+        _expanding = u;
+        _G.forEachSuccessor(u, _successorProcessor);
     }
 
     /** Process successor V to U.  Returns true iff V is then to
@@ -119,23 +122,74 @@ public abstract class Traversal {
         return !marked(v);
     }
 
+    /** Mark and visit V, which must be unmarked. */
+    void start(int v) {
+        mark(v);
+        visit(v);
+        if (_visited != null) {
+            _visited.add(v);
+        }
+    }
+
+    /** Post-visit V, unless it has already been post-visited. */
+    void finish(int v) {
+        if (!_postVisited.get(v)) {
+            postVisit(v);
+            _postVisited.set(v);
+        }
+    }
+
+    /** Add V to the fringe. */
+    void push(int v) {
+        if (_ints != null) {
+            _ints.addInt(v);
+        } else {
+            _fringe.add(v);
+        }
+    }
+
+    /** Remove and return the next vertex from the fringe, which must not
+     *  be empty. */
+    int pop() {
+        return _ints != null ? _ints.removeInt() : _fringe.remove();
+    }
+
+    /** Start recording the vertices I visit, in order, for testing
+     *  purposes.  Until this is called, nothing is recorded. */
+    void recordVisits() {
+        if (_visited == null) {
+            _visited = new ArrayList<>();
+        }
+    }
+
     /** The graph being traversed. */
     private final Graph _G;
 
     /** The fringe. */
     protected final Queue<Integer> _fringe;
 
-    /** ArrayList containing marked vertices. */
-    private ArrayList<Integer> _marked;
+    /** The fringe, if it is an IntDeque, and otherwise null. */
+    private final IntDeque _ints;
+
+    /** The vertex whose successors processSuccessors is processing. */
+    private int _expanding;
+
+    /** Processes one successor of _expanding for processSuccessors. */
+    private final IntConsumer _successorProcessor;
+
+    /** Set of marked vertices. */
+    private final BitSet _marked;
 
-    /** ArrayList containing visited vertices for testing purposes. */
+    /** Visited vertices in order of visiting, for testing purposes, or
+     *  null if they are not being recorded. */
     private ArrayList<Integer> _visited;
 
-    /** Method for testing purposes that returns visited vertices. */
+    /** Method for testing purposes that returns the vertices visited
+     *  since recordVisits was called. */
     ArrayList<Integer> myVisited() {
-        return _visited;
+        return _visited == null ? new ArrayList<>() : _visited;
     }
 
-    /** Arraylist containg postvisited vertices. */
-    private ArrayList<Integer> _postVisited;
+    /** Set of postvisited vertices. */
+    private final BitSet _postVisited;
 }
@@ -2,7 +2,13 @@ package graph;
 
 import org.junit.Test;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import static org.junit.Assert.*;
 
@@ -23,6 +29,7 @@ public class TraversalTest {
         g.add(2, 5);
 
         Traversal traversal = new BreadthFirstTraversal(g);
+        traversal.recordVisits();
         traversal.traverse(1);
         ArrayList<Integer> result = new ArrayList<>();
         result.add(1);
@@ -35,6 +42,7 @@ public class TraversalTest {
         g.add();
         g.add(3, 6);
         traversal = new DepthFirstTraversal(g);
+        traversal.recordVisits();
         traversal.traverse(1);
         result = new ArrayList<>();
         result.add(1);
@@ -46,4 +54,198 @@ public class TraversalTest {
         assertEquals(result, traversal.myVisited());
     }
 
+    @Test
+    public void testDepthFirstOrder() {
+        Random random = new Random(2236);
+        for (int trial = 0; trial < 50; trial += 1) {
+            DirectedGraph g = new DirectedGraph();
+            for (int i = 0; i < 30; i += 1) {
+                g.add();
+            }
+            for (int i = 0; i < 60; i += 1) {
+                g.add(1 + random.nextInt(30), 1 + random.nextInt(30));
+            }
+            ArrayList<Integer> expected = new ArrayList<>(),
+                actual = new ArrayList<>();
+            Traversal general = new Traversal(g, new IntDeque(true)) {
+                @Override
+                protected boolean visit(int v) {
+                    expected.add(v);
+                    return true;
+                }
+
+                @Override
+                protected boolean shouldPostVisit(int v) {
+                    return true;
+                }
+
+                @Override
+                protected boolean postVisit(int v) {
+                    expected.add(-v);
+                    return true;
+                }
+            };
+            Traversal depthFirst = new DepthFirstTraversal(g) {
+                @Override
+                protected boolean visit(int v) {
+                    actual.add(v);
+                    return true;
+                }
+
+                @Override
+                protected boolean postVisit(int v) {
+                    actual.add(-v);
+                    return true;
+                }
+            };
+            List<Integer> starts = Arrays.asList(1, 2, 3);
+            general.traverse(starts);
+            depthFirst.traverse(starts);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testDeepDepthFirst() {
+        int n = 300000;
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int v = 1; v < n; v += 1) {
+            g.add(v, v + 1);
+            g.add(v + 1, v);
+        }
+        ArrayList<Integer> post = new ArrayList<>();
+        Traversal traversal = new DepthFirstTraversal(g) {
+            @Override
+            protected boolean postVisit(int v) {
+                post.add(v);
+                return true;
+            }
+        };
+        traversal.traverse(1);
+        assertEquals(n, post.size());
+        for (int i = 0; i < n; i += 1) {
+            assertEquals(n - i, (int) post.get(i));
+        }
+        traversal.traverse(1);
+        assertEquals(n, post.size());
+    }
+
+    @Test
+    public void testIntDeque() {
+        IntDeque fifo = new IntDeque(false), lifo = new IntDeque(true);
+        for (int i = 1; i <= 40; i += 1) {
+            fifo.add(i);
+            lifo.addInt(i);
+        }
+        assertEquals(40, fifo.size());
+        assertEquals(1, (int) fifo.peek());
+        assertEquals(40, (int) lifo.peek());
+        assertEquals(40, (int) lifo.iterator().next());
+        for (int i = 1; i <= 20; i += 1) {
+            assertEquals(i, fifo.removeInt());
+            assertEquals(41 - i, (int) lifo.remove());
+        }
+        for (int i = 41; i <= 60; i += 1) {
+            fifo.addInt(i);
+        }
+        int expected = 21;
+        for (int x : fifo) {
+            assertEquals(expected, x);
+            expected += 1;
+        }
+        assertEquals(61, expected);
+        lifo.clear();
+        assertTrue(lifo.isEmpty());
+        assertNull(lifo.poll());
+    }
+
+    @Test
+    public void testParallelBreadthFirst() {
+        Random random = new Random(3141);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int trial = 0; trial < 6; trial += 1) {
+                Graph g = trial % 2 == 0 ? new DirectedGraph()
+                    : new UndirectedGraph();
+                int n = 3000;
+                for (int i = 0; i < n; i += 1) {
+                    g.add();
+                }
+                for (int i = 0; i < 4 * n * (trial + 1); i += 1) {
+                    g.add(1 + random.nextInt(n), 1 + random.nextInt(n));
+                }
+                int source = 1 + random.nextInt(n);
+                int[] expected = breadthFirstDepths(g, source);
+                AtomicIntegerArray visits = new AtomicIntegerArray(n + 1);
+                ParallelBreadthFirstTraversal traversal =
+                    new ParallelBreadthFirstTraversal(g, pool) {
+                        @Override
+                        protected boolean visit(int v) {
+                            visits.incrementAndGet(v);
+                            return true;
+                        }
+                    };
+                traversal.traverse(source);
+                for (int v = 1; v <= n; v += 1) {
+                    assertEquals(expected[v], traversal.depth(v));
+                    assertEquals(expected[v] >= 0 ? 1 : 0, visits.get(v));
+                }
+            }
+
+            Graph g = new DirectedGraph();
+            for (int i = 0; i < 60; i += 1) {
+                g.add();
+            }
+            g.add(1, 2);
+            for (int v = 4; v <= 60; v += 1) {
+                g.add(3, v);
+            }
+            AtomicIntegerArray visits = new AtomicIntegerArray(62);
+            ParallelBreadthFirstTraversal traversal =
+                new ParallelBreadthFirstTraversal(g, pool) {
+                    @Override
+                    protected boolean visit(int v) {
+                        visits.incrementAndGet(v);
+                        return true;
+                    }
+                };
+            traversal.traverse(1);
+            g.add();
+            g.add(1, 61);
+            traversal.traverse(3);
+            for (int v = 1; v <= 61; v += 1) {
+                assertEquals(v == 61 ? 0 : 1, visits.get(v));
+            }
+            assertEquals(-1, traversal.depth(61));
+            assertEquals(1, traversal.depth(2));
+            assertEquals(0, traversal.depth(3));
+            assertEquals(1, traversal.depth(60));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Returns the number of edges on a shortest path from SOURCE to each
+     *  vertex of G, or -1 for vertices not reachable. */
+    private static int[] breadthFirstDepths(Graph g, int source) {
+        int[] depth = new int[g.maxVertex() + 1];
+        Arrays.fill(depth, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        depth[source] = 0;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.remove();
+            for (int v : g.successors(u)) {
+                if (depth[v] < 0) {
+                    depth[v] = depth[u] + 1;
+                    queue.add(v);
+                }
+            }
+        }
+        return depth;
+    }
+
 }
@@ -2,6 +2,8 @@ package graph;
 
 /* See restrictions in Graph.java. */
 
+import java.util.function.IntConsumer;
+
 /** Represents an undirected graph.  Out edges and in edges are not
  *  distinguished.  Likewise for successors and predecessors.
  *
@@ -24,4 +26,9 @@ public class UndirectedGraph extends GraphObj {
         return neighbors(v);
     }
 
+    @Override
+    void forEachPredecessor(int v, IntConsumer action) {
+        forEachSuccessor(v, action);
+    }
+
 }
@@ -16,7 +16,7 @@ public class UnitTest {
     /** Run all JUnit tests in the graph package. */
     public static void main(String[] ignored) {
         System.exit(textui.runClasses(graph.GraphTest.class,
-                graph.TraversalTest.class));
+                graph.TraversalTest.class, graph.ShortestPathsTest.class));
     }
 
 }
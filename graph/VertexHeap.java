@@ -0,0 +1,145 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A min-heap of vertices, each with a double priority, that is indexed
+ *  by vertex number so that the priority of a queued vertex may be
+ *  changed in place.  Used as the fringe of shortest-path searches.
+ *  @author Yuan Xie.
+ */
+class VertexHeap {
+
+    /** An empty heap able to hold vertices 1 .. MAXVERTEX. */
+    VertexHeap(int maxVertex) {
+        _heap = new int[INITIAL_CAPACITY];
+        _priority = new double[INITIAL_CAPACITY];
+        _position = new int[maxVertex + 1];
+        _size = 0;
+    }
+
+    /** Returns the number of vertices in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff I contain no vertices. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns true iff V is in me. */
+    boolean contains(int v) {
+        return v < _position.length && _position[v] != 0;
+    }
+
+    /** Returns the smallest priority in me.  Assumes I am not empty. */
+    double minPriority() {
+        return _priority[0];
+    }
+
+    /** Returns a vertex of smallest priority without removing it.  Assumes
+     *  I am not empty. */
+    int peek() {
+        return _heap[0];
+    }
+
+    /** Make sure that I can hold vertices up to MAXVERTEX. */
+    void ensureCapacity(int maxVertex) {
+        if (maxVertex >= _position.length) {
+            _position = Arrays.copyOf(_position, maxVertex + 1);
+        }
+    }
+
+    /** Add V to me with priority P, or, if V is already present, change its
+     *  priority to P. */
+    void update(int v, double p) {
+        if (!contains(v)) {
+            if (_size == _heap.length) {
+                _heap = Arrays.copyOf(_heap, 2 * _size);
+                _priority = Arrays.copyOf(_priority, 2 * _size);
+            }
+            _size += 1;
+            siftUp(_size - 1, v, p);
+        } else {
+            int k = _position[v] - 1;
+            if (p < _priority[k]) {
+                siftUp(k, v, p);
+            } else {
+                siftDown(k, v, p);
+            }
+        }
+    }
+
+    /** Remove and return a vertex of smallest priority.  Assumes I am not
+     *  empty. */
+    int removeMin() {
+        int result = _heap[0];
+        _position[result] = 0;
+        _size -= 1;
+        if (_size > 0) {
+            siftDown(0, _heap[_size], _priority[_size]);
+        }
+        return result;
+    }
+
+    /** Remove all vertices from me, in time proportional to my size. */
+    void clear() {
+        for (int k = 0; k < _size; k += 1) {
+            _position[_heap[k]] = 0;
+        }
+        _size = 0;
+    }
+
+    /** Place V with priority P at heap position K or above, moving larger
+     *  ancestors down. */
+    private void siftUp(int k, int v, double p) {
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (_priority[parent] <= p) {
+                break;
+            }
+            place(k, _heap[parent], _priority[parent]);
+            k = parent;
+        }
+        place(k, v, p);
+    }
+
+    /** Place V with priority P at heap position K or below, moving smaller
+     *  descendants up. */
+    private void siftDown(int k, int v, double p) {
+        while (2 * k + 1 < _size) {
+            int c = 2 * k + 1;
+            if (c + 1 < _size && _priority[c + 1] < _priority[c]) {
+                c += 1;
+            }
+            if (_priority[c] >= p) {
+                break;
+            }
+            place(k, _heap[c], _priority[c]);
+            k = c;
+        }
+        place(k, v, p);
+    }
+
+    /** Store V with priority P at heap position K. */
+    private void place(int k, int v, double p) {
+        _heap[k] = v;
+        _priority[k] = p;
+        _position[v] = k + 1;
+    }
+
+    /** Initial capacity of the heap arrays. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The queued vertices, in heap order, in positions [0 .. _size-1]. */
+    private int[] _heap;
+    /** _priority[K] is the priority of _heap[K]. */
+    private double[] _priority;
+    /** _position[V] is one more than the position of V in _heap, or 0 if V
+     *  is not queued. */
+    private int[] _position;
+    /** Number of queued vertices. */
+    private int _size;
+}
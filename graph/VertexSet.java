@@ -0,0 +1,156 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/** A set of vertex numbers (positive integers) that hands out the
+ *  smallest unused number on request.  Membership is kept in a bit set;
+ *  numbers freed by removal are kept in a min-heap so that allocation does
+ *  not have to search for a gap.
+ *  @author Yuan Xie.
+ */
+class VertexSet {
+
+    /** An empty set. */
+    VertexSet() {
+        _members = new BitSet();
+        _free = new int[INITIAL_FREE];
+        _numFree = 0;
+        _top = 1;
+        _size = 0;
+    }
+
+    /** Returns the number of vertices in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns my largest vertex, or 0 if I am empty. */
+    int max() {
+        return Math.max(0, _members.length() - 1);
+    }
+
+    /** Returns true iff V is one of my vertices. */
+    boolean contains(int v) {
+        return v > 0 && _members.get(v);
+    }
+
+    /** Add and return the smallest positive integer that is not currently
+     *  one of my vertices. */
+    int add() {
+        int v;
+        if (_numFree > 0) {
+            v = popFree();
+        } else {
+            v = _top;
+            _top += 1;
+        }
+        _members.set(v);
+        _size += 1;
+        return v;
+    }
+
+    /** Remove V, if present.  Returns true iff V was present. */
+    boolean remove(int v) {
+        if (!contains(v)) {
+            return false;
+        }
+        _members.clear(v);
+        _size -= 1;
+        pushFree(v);
+        return true;
+    }
+
+    /** Returns an Iteration over my vertices in increasing order. */
+    Iteration<Integer> iteration() {
+        return new Iteration<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return _next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (_next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = _next;
+                _next = _members.nextSetBit(v + 1);
+                return v;
+            }
+
+            /** The next vertex to deliver, or -1 if none. */
+            private int _next = _members.nextSetBit(1);
+        };
+    }
+
+    /** Returns my vertices in increasing order as a list. */
+    ArrayList<Integer> toList() {
+        ArrayList<Integer> result = new ArrayList<>(_size);
+        for (int v = _members.nextSetBit(1); v >= 0;
+             v = _members.nextSetBit(v + 1)) {
+            result.add(v);
+        }
+        return result;
+    }
+
+    /** Add V to the heap of free numbers. */
+    private void pushFree(int v) {
+        if (_numFree == _free.length) {
+            _free = Arrays.copyOf(_free, 2 * _free.length);
+        }
+        int k = _numFree;
+        _numFree += 1;
+        while (k > 0 && _free[(k - 1) / 2] > v) {
+            _free[k] = _free[(k - 1) / 2];
+            k = (k - 1) / 2;
+        }
+        _free[k] = v;
+    }
+
+    /** Remove and return the smallest free number.  Assumes there is
+     *  one. */
+    private int popFree() {
+        int result = _free[0];
+        _numFree -= 1;
+        int last = _free[_numFree];
+        int k = 0;
+        while (2 * k + 1 < _numFree) {
+            int c = 2 * k + 1;
+            if (c + 1 < _numFree && _free[c + 1] < _free[c]) {
+                c += 1;
+            }
+            if (_free[c] >= last) {
+                break;
+            }
+            _free[k] = _free[c];
+            k = c;
+        }
+        _free[k] = last;
+        return result;
+    }
+
+    /** Initial capacity of the free-number heap. */
+    private static final int INITIAL_FREE = 16;
+
+    /** Bit V is set iff V is one of my vertices. */
+    private final BitSet _members;
+
+    /** Binary min-heap of freed vertex numbers less than _top, in positions
+     *  [0 .. _numFree - 1]. */
+    private int[] _free;
+
+    /** Number of entries in _free. */
+    private int _numFree;
+
+    /** The smallest number that has never been handed out.  Every free
+     *  number below it is in _free. */
+    private int _top;
+
+    /** Number of vertices in me. */
+    private int _size;
+}
@@ -0,0 +1,212 @@
+package make;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/** Reads a file either line by line or token by token, working directly
+ *  on its bytes, which it reads in large blocks through a FileChannel.
+ *  After nextLine or nextToken, the current line or token is the bytes
+ *  start() .. end() - 1 of buffer(), which the client may examine in
+ *  place.  Strings are made only when asked for: by text, which decodes
+ *  bytes afresh, or by name, which interns them in a NameTable.  The
+ *  buffer grows as needed to hold the longest line or token.
+ *
+ *  Lines end at a newline, a carriage return, or both together, and
+ *  tokens are separated by ASCII whitespace, as for Character.isWhitespace.
+ *  Bytes are decoded in the default character set, as Scanner does.
+ *  @author Yuan Xie.
+ */
+class ByteScanner implements Closeable {
+
+    /** A scanner for the file named FILENAME that interns names in
+     *  NAMES. */
+    ByteScanner(String fileName, NameTable names)
+        throws FileNotFoundException {
+        this(fileName, names, BUFFER_SIZE);
+    }
+
+    /** A scanner for the file named FILENAME that interns names in NAMES,
+     *  reading BUFFERSIZE (> 0) bytes at a time at first.  Small sizes
+     *  are for testing the handling of lines and tokens that span
+     *  reads. */
+    ByteScanner(String fileName, NameTable names, int bufferSize)
+        throws FileNotFoundException {
+        _channel = new FileInputStream(fileName).getChannel();
+        _names = names;
+        _buf = new byte[bufferSize];
+    }
+
+    /** Advance to the next line, returning false if there are no more. */
+    boolean nextLine() throws IOException {
+        int k = _pos;
+        while (true) {
+            while (k < _limit && _buf[k] != '\n' && _buf[k] != '\r') {
+                k += 1;
+            }
+            if (_eof || k + 1 < _limit || (k < _limit && _buf[k] == '\n')) {
+                break;
+            }
+            k -= fill();
+        }
+        if (_pos == _limit) {
+            return false;
+        }
+        _start = _pos;
+        _end = k;
+        if (k < _limit) {
+            if (_buf[k] == '\r' && k + 1 < _limit && _buf[k + 1] == '\n') {
+                k += 1;
+            }
+            k += 1;
+        }
+        _pos = k;
+        return true;
+    }
+
+    /** Advance to the next token, returning false if there are no more. */
+    boolean nextToken() throws IOException {
+        while (true) {
+            while (_pos < _limit && isWhitespace(_buf[_pos])) {
+                _pos += 1;
+            }
+            if (_pos < _limit || _eof) {
+                break;
+            }
+            fill();
+        }
+        if (_pos == _limit) {
+            return false;
+        }
+        int k = _pos;
+        while (true) {
+            while (k < _limit && !isWhitespace(_buf[k])) {
+                k += 1;
+            }
+            if (k < _limit || _eof) {
+                break;
+            }
+            k -= fill();
+        }
+        _start = _pos;
+        _end = k;
+        _pos = k;
+        return true;
+    }
+
+    /** Advance to the next token and return its value as an int, as for
+     *  Scanner.nextInt.  Throws NoSuchElementException if there are no
+     *  more tokens, and its subtype InputMismatchException if the token
+     *  does not denote an int. */
+    int nextInt() throws IOException {
+        if (!nextToken()) {
+            throw new NoSuchElementException();
+        }
+        int k = _start;
+        boolean negative = false;
+        if (_buf[k] == '-' || _buf[k] == '+') {
+            negative = _buf[k] == '-';
+            k += 1;
+        }
+        if (k < _end && _end - k <= MAX_FAST_DIGITS) {
+            int n = 0;
+            while (k < _end && _buf[k] >= '0' && _buf[k] <= '9') {
+                n = 10 * n + _buf[k] - '0';
+                k += 1;
+            }
+            if (k == _end) {
+                return negative ? -n : n;
+            }
+        }
+        return new Scanner(text(_start, _end)).nextInt();
+    }
+
+    /** Returns the buffer holding the current line or token. */
+    byte[] buffer() {
+        return _buf;
+    }
+
+    /** Returns the position of the current line or token in buffer(). */
+    int start() {
+        return _start;
+    }
+
+    /** Returns the position just past the current line or token in
+     *  buffer(). */
+    int end() {
+        return _end;
+    }
+
+    /** Returns bytes START .. END - 1 of buffer() as a new String. */
+    String text(int start, int end) {
+        return new String(_buf, start, end - start, Charset.defaultCharset());
+    }
+
+    /** Returns bytes START .. END - 1 of buffer() as a name from my
+     *  NameTable. */
+    String name(int start, int end) {
+        return _names.get(_buf, start, end);
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+
+    /** Returns true iff B is an ASCII whitespace character, according to
+     *  Character.isWhitespace. */
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1c && b < ' ');
+    }
+
+    /** Read more input, keeping the bytes from _pos on, which are moved to
+     *  the front of _buf (which is enlarged if they fill it).  Sets _eof if
+     *  there is no more.  Returns the distance the kept bytes moved. */
+    private int fill() throws IOException {
+        int shift = _pos;
+        System.arraycopy(_buf, _pos, _buf, 0, _limit - _pos);
+        _limit -= _pos;
+        _pos = 0;
+        if (_limit == _buf.length) {
+            _buf = Arrays.copyOf(_buf, 2 * _buf.length);
+        }
+        int n = _channel.read(ByteBuffer.wrap(_buf, _limit,
+                                              _buf.length - _limit));
+        if (n < 0) {
+            _eof = true;
+        } else {
+            _limit += n;
+        }
+        return shift;
+    }
+
+    /** Initial size of _buf. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** Largest number of digits in an int converted by nextInt without
+     *  help from Scanner (which handles overflow and other formats). */
+    private static final int MAX_FAST_DIGITS = 9;
+
+    /** The file being read. */
+    private final FileChannel _channel;
+    /** Where names are interned. */
+    private final NameTable _names;
+    /** Bytes read from the file and not yet discarded. */
+    private byte[] _buf;
+    /** The bytes in _buf are _buf[0 .. _limit - 1]. */
+    private int _limit;
+    /** Position in _buf of the first byte not yet scanned. */
+    private int _pos;
+    /** Bounds of the current line or token in _buf. */
+    private int _start, _end;
+    /** True once the end of the file has been read. */
+    private boolean _eof;
+}
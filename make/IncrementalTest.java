@@ -0,0 +1,70 @@
+package make;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static make.UnitTest.make;
+import static make.UnitTest.randomFileInfo;
+import static make.UnitTest.randomMakefile;
+
+/** Unit tests for incremental builds, each of which should give the
+ *  same output as a full build.
+ *  @author Yuan Xie.
+ */
+public class IncrementalTest {
+
+    @Test
+    public void testMissingPrerequisite() {
+        String output = check("a: b\n\tbuild a\nb: c\n\tbuild b\n"
+                              + "d: c\n\tbuild d\n",
+                              "100\na 50\nc 10\nd 60\n", "a", "d");
+        assertEquals("\tbuild b\n\tbuild a\n", output);
+    }
+
+    @Test
+    public void testNewerPrerequisite() {
+        String output = check("a: b\n\tbuild a\nb: c\n\tbuild b\n"
+                              + "d: c\n\tbuild d\n",
+                              "100\na 50\nb 40\nc 45\nd 60\n", "a", "d");
+        assertEquals("\tbuild b\n\tbuild a\n", output);
+    }
+
+    @Test
+    public void testEarlierTargetChangesLater() {
+        String makefile = "a: c\n\tbuild a\nb: c\n\tbuild b\n"
+            + "c: d\n\tbuild c\ne: a\n\tbuild e\n";
+        String fileInfo = "100\na 50\nb 50\nc 20\nd 30\ne 60\n";
+        assertEquals("\tbuild c\n\tbuild a\n\tbuild b\n",
+                     check(makefile, fileInfo, "a", "b"));
+        assertEquals("\tbuild c\n\tbuild a\n\tbuild e\n",
+                     check(makefile, fileInfo, "a", "e"));
+        assertEquals("\tbuild c\n\tbuild a\n\tbuild e\n",
+                     check(makefile, fileInfo, "e", "a"));
+        assertEquals("\tbuild c\n\tbuild b\n\tbuild a\n\tbuild e\n",
+                     check(makefile, fileInfo, "b", "e"));
+    }
+
+    @Test
+    public void testRandom() {
+        for (int seed = 1; seed <= 10; seed += 1) {
+            Random rand = new Random(seed);
+            String makefile = randomMakefile(rand, 200, null);
+            String fileInfo = randomFileInfo(rand, 200, 0.9);
+            check(makefile, fileInfo, "T3", "T0", "T7");
+        }
+    }
+
+    /** Returns the output of building TARGETS from the makefile whose
+     *  text is MAKEFILE and the file information whose text is FILEINFO,
+     *  with lines ended by newlines, after checking that it is the same
+     *  whether or not the build is incremental. */
+    private static String check(String makefile, String fileInfo,
+                                String... targets) {
+        String full = make(makefile, fileInfo, 1, false, targets);
+        assertEquals(full, make(makefile, fileInfo, 1, true, targets));
+        return full.replace(System.lineSeparator(), "\n");
+    }
+
+}
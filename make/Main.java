@@ -10,13 +10,20 @@ public final class Main {
 
     /** Entry point for the CS61B make program.  RAWARGS may contain options
      *  and targets:
-     *      [ -f MAKEFILE ] [ -D FILEINFO ] TARGET1 TARGET2 ...
+     *      [ -f MAKEFILE ] [ -D FILEINFO ] [ -j JOBS ] [ -c CACHE ] [ -i ]
+     *          TARGET1 TARGET2 ...
+     *  With -j, up to JOBS targets whose dependencies are up to date are
+     *  rebuilt at once.  With -c, the parsed makefile is kept in the file
+     *  CACHE, and later runs read it from there while the makefile is
+     *  unchanged.  With -i, only targets affected by missing or changed
+     *  files are examined.
      */
     public static void main(String... rawArgs) {
         String makefileName;
         String fileInfoName;
-        CommandArgs args = new CommandArgs("-f={0,1} -D={0,1} --={1,}",
-                                           rawArgs);
+        CommandArgs args =
+            new CommandArgs("-f={0,1} -D={0,1} -j={0,1} -c={0,1} -i --={1,}",
+                            rawArgs);
 
         if (!args.ok()) {
             usage();
@@ -30,17 +37,38 @@ public final class Main {
         Maker maker = new Maker();
 
         try {
+            maker.setIncremental(args.contains("-i"));
+            if (args.contains("-j")) {
+                maker.setJobs(jobCount(args.getLast("-j")));
+            }
             maker.readFileAges(fileInfoName);
-            maker.readMakefile(makefileName);
-            for (String target : args.get("--")) {
-                maker.build(target);
+            if (args.contains("-c")) {
+                maker.readMakefile(makefileName, args.getLast("-c"));
+            } else {
+                maker.readMakefile(makefileName);
             }
+            maker.build(args.get("--"));
         } catch (IllegalArgumentException | IllegalStateException excp) {
             System.err.printf("make: %s%n", excp.getMessage());
             System.exit(1);
         }
     }
 
+    /** Returns the number of jobs denoted by ARG, which must be a positive
+     *  integer. */
+    private static int jobCount(String arg) {
+        try {
+            int jobs = Integer.parseInt(arg);
+            if (jobs > 0) {
+                return jobs;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to report the error. */
+        }
+        error("bad job count: %s", arg);
+        return 0;
+    }
+
     /** Throw an exception containing a message constructed from FORMAT
      *  and ARGS, as for String.format. */
     static void error(String format, Object... args) {
@@ -50,13 +78,19 @@ public final class Main {
     /** Print a brief usage message and exit program abnormally. */
     private static void usage() {
         System.err.printf("Usage: java make [-D FILEINFO] [-f MAKEFILE] "
-                          + "TARGET...%n"
+                          + "[-j JOBS] [-c CACHE] [-i] TARGET...%n"
                           + "   FILEINFO contains the current time and change "
                           + "times for files%n"
                           + "      (default 'fileinfo').%n"
                           + "   MAKEFILE contains dependency information and "
                           + "build commands%n"
-                          + "      (default Makefile).%n");
+                          + "      (default Makefile).%n"
+                          + "   JOBS is the number of targets to rebuild at "
+                          + "once (default 1).%n"
+                          + "   CACHE holds the parsed makefile between "
+                          + "runs.%n"
+                          + "   -i examines only targets affected by "
+                          + "changed files.%n");
         System.exit(1);
     }
 
@@ -0,0 +1,129 @@
+package make;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/** A binary file holding the rules parsed from a makefile, so that later
+ *  runs on an unchanged makefile may skip parsing it.  The cache records
+ *  the makefile's size, modification time, and CRC-32 checksum, and is
+ *  used only if all three still match.  It lists the rules in the order
+ *  of their vertices in the dependence graph, each with its commands and
+ *  then its dependencies (as vertex numbers), so that loading it recreates
+ *  the same graph, with the same vertex numbers and adjacency order, as
+ *  parsing would.  A cache that is missing, stale, or unreadable is simply
+ *  ignored.
+ *  @author Yuan Xie.
+ */
+class MakefileCache {
+
+    /** A cache of the makefile named MAKEFILENAME kept in the file named
+     *  CACHENAME. */
+    MakefileCache(String makefileName, String cacheName) {
+        _makefile = new File(makefileName);
+        _cache = new File(cacheName);
+    }
+
+    /** Create the rules recorded in the cache in MAKER, if the cache is
+     *  current, returning true iff it was.  MAKER must not yet have any
+     *  rules. */
+    boolean load(Maker maker) {
+        if (!_cache.isFile() || !_makefile.isFile()) {
+            return false;
+        }
+        try (DataInputStream inp = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(_cache)))) {
+            if (inp.readInt() != MAGIC
+                || inp.readLong() != _makefile.length()
+                || inp.readLong() != _makefile.lastModified()
+                || inp.readLong() != checksum()) {
+                return false;
+            }
+            int n = inp.readInt();
+            Rule[] rules = new Rule[n + 1];
+            for (int v = 1; v <= n; v += 1) {
+                String target = inp.readUTF();
+                int k = inp.readInt();
+                ArrayList<String> commands = new ArrayList<>(k);
+                for (int i = 0; i < k; i += 1) {
+                    commands.add(inp.readUTF());
+                }
+                rules[v] = maker.defineRule(target, commands);
+            }
+            for (int v = 1; v <= n; v += 1) {
+                int k = inp.readInt();
+                for (int i = 0; i < k; i += 1) {
+                    rules[v].addDependency(rules[inp.readInt()]);
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException excp) {
+            maker.discardRules();
+            return false;
+        }
+    }
+
+    /** Record the rules in MAKER, which were just read from the makefile.
+     *  Failure to write the cache is not an error; the makefile will
+     *  simply be parsed again next time. */
+    void save(Maker maker) {
+        Depends depends = maker.getGraph();
+        int n = depends.maxVertex();
+        File temp = new File(_cache.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(_makefile.length());
+            out.writeLong(_makefile.lastModified());
+            out.writeLong(checksum());
+            out.writeInt(n);
+            for (int v = 1; v <= n; v += 1) {
+                Rule rule = depends.getLabel(v);
+                List<String> commands = rule.getCommands();
+                out.writeUTF(rule.getTarget());
+                out.writeInt(commands.size());
+                for (String command : commands) {
+                    out.writeUTF(command);
+                }
+            }
+            for (int v = 1; v <= n; v += 1) {
+                out.writeInt(depends.outDegree(v));
+                for (int w : depends.successors(v)) {
+                    out.writeInt(w);
+                }
+            }
+        } catch (IOException excp) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(_cache)) {
+            temp.delete();
+        }
+    }
+
+    /** Returns the CRC-32 checksum of the makefile's contents. */
+    private long checksum() throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(_makefile.toPath()));
+        return crc.getValue();
+    }
+
+    /** Identifies cache files (and their format version). */
+    private static final int MAGIC = 0x4d4b4301;
+
+    /** The makefile. */
+    private final File _makefile;
+    /** The cache file. */
+    private final File _cache;
+}
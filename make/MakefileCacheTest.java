@@ -0,0 +1,126 @@
+package make;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static make.UnitTest.build;
+import static make.UnitTest.tempFile;
+
+/** Unit tests for the MakefileCache class.
+ *  @author Yuan Xie.
+ */
+public class MakefileCacheTest {
+
+    @Test
+    public void testRoundTrip() {
+        File makefile = tempFile(".mk", MAKEFILE);
+        File cache = cacheFile();
+        String expected = build(parsed(makefile), "a", "e");
+        assertEquals("\tbuild c\n\tbuild b\n\tbuild a\n\tbuild e\n",
+                     expected.replace(System.lineSeparator(), "\n"));
+
+        assertEquals(expected, build(cached(makefile, cache, false),
+                                     "a", "e"));
+        assertTrue(cache.isFile());
+        Maker maker = new Maker();
+        maker.readFileAges(FILE_INFO.getPath());
+        assertTrue(new MakefileCache(makefile.getPath(), cache.getPath())
+                   .load(maker));
+        assertEquals(expected, build(maker, "a", "e"));
+        assertEquals(expected, build(cached(makefile, cache, false),
+                                     "a", "e"));
+    }
+
+    @Test
+    public void testChangedContents() throws IOException {
+        File makefile = tempFile(".mk", MAKEFILE);
+        File cache = cacheFile();
+        build(cached(makefile, cache, false), "a");
+        long modified = makefile.lastModified();
+        long size = makefile.length();
+
+        File edited = tempFile(".mk", MAKEFILE.replace("build b", "build x"));
+        assertTrue(edited.renameTo(makefile));
+        assertTrue(makefile.setLastModified(modified));
+        assertEquals(size, makefile.length());
+        assertEquals(modified, makefile.lastModified());
+
+        Maker maker = new Maker();
+        maker.readFileAges(FILE_INFO.getPath());
+        assertFalse(new MakefileCache(makefile.getPath(), cache.getPath())
+                    .load(maker));
+        assertEquals(build(parsed(makefile), "a"),
+                     build(cached(makefile, cache, false), "a"));
+    }
+
+    @Test
+    public void testDamagedCache() throws IOException {
+        File makefile = tempFile(".mk", MAKEFILE);
+        File cache = cacheFile();
+        String expected = build(parsed(makefile), "a", "e");
+        build(cached(makefile, cache, false), "a");
+        long length = cache.length();
+        /* Incremental builds also check that no Rules created from the
+         * damaged cache remain among the missing targets. */
+        for (long k = length - 1; k >= 0; k -= 1) {
+            try (RandomAccessFile file = new RandomAccessFile(cache, "rw")) {
+                file.setLength(k);
+            }
+            Maker maker = new Maker();
+            maker.readFileAges(FILE_INFO.getPath());
+            assertFalse(new MakefileCache(makefile.getPath(),
+                                          cache.getPath()).load(maker));
+            assertEquals(expected, build(cached(makefile, cache, true),
+                                         "a", "e"));
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(cache, "rw")) {
+            file.seek(length - 4);
+            file.writeInt(Integer.MAX_VALUE);
+        }
+        assertEquals(expected, build(cached(makefile, cache, true),
+                                     "a", "e"));
+    }
+
+    /** Returns a Maker that has read the file information and then
+     *  MAKEFILE. */
+    private static Maker parsed(File makefile) {
+        Maker maker = new Maker();
+        maker.readFileAges(FILE_INFO.getPath());
+        maker.readMakefile(makefile.getPath());
+        return maker;
+    }
+
+    /** Returns a Maker that has read the file information and then
+     *  MAKEFILE through CACHE, building incrementally iff INCREMENTAL. */
+    private static Maker cached(File makefile, File cache,
+                                boolean incremental) {
+        Maker maker = new Maker();
+        maker.setIncremental(incremental);
+        maker.readFileAges(FILE_INFO.getPath());
+        maker.readMakefile(makefile.getPath(), cache.getPath());
+        return maker;
+    }
+
+    /** Returns the name of a cache file that does not yet exist. */
+    private static File cacheFile() {
+        File cache = tempFile(".cache", "");
+        assertTrue(cache.delete());
+        cache.deleteOnExit();
+        return cache;
+    }
+
+    /** A makefile in which a, b, and c are out of date, the missing
+     *  target e depends on the up-to-date d, and f is not requested. */
+    private static final String MAKEFILE =
+        "a: b d\n\tbuild a\nb: c\n\tbuild b\nc: d\n\tbuild c\n"
+        + "e: d\n\tbuild e\nf: a\n\tbuild f\n";
+
+    /** File information for MAKEFILE. */
+    private static final File FILE_INFO =
+        tempFile(".dir", "100\na 10\nb 20\nc 30\nd 40\nf 90\n");
+}
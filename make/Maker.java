@@ -2,19 +2,16 @@ package make;
 
 import graph.DepthFirstTraversal;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.Scanner;
 
-import static java.util.Arrays.asList;
 import static make.Main.error;
 
 /** Represents a makefile.
@@ -22,129 +19,281 @@ import static make.Main.error;
  */
 class Maker {
 
-    /** Describes Makefile lines that are ignored. */
-    static final Pattern IGNORED = Pattern.compile("\\s*(#.*)?");
-    /** Describes a rule header in a makefile:  TARGET: DEPENDENCIES. */
-    static final Pattern HEADER =
-        Pattern.compile("([^:\\s]+)\\s*:\\s*(.*?)\\s*");
-    /** Describes a sequence of valid targets and whitespace. */
-    static final Pattern TARGETS = Pattern.compile("[^:=#\\\\]*$");
-    /** Describes an indented command line. */
-    static final Pattern COMMAND = Pattern.compile("(\\s+.*)");
-    /** Describes the separator on dependencies lines. */
-    static final Pattern SPACES = Pattern.compile("\\p{Blank}+");
+    /** Characters that may not appear in targets or dependencies. */
+    private static final String BAD_TARGET_CHARS = ":=#\\";
 
     /** Read and store the ages of existing targets from the
      *  file named FILEINFONAME. Fixed. */
     void readFileAges(String fileInfoName) {
         String name;
         name = "<unknown>";
-        try {
-            Scanner inp = new Scanner(new File(fileInfoName));
+        try (ByteScanner inp = new ByteScanner(fileInfoName, _names)) {
             _currentTime = inp.nextInt();
-            while (inp.hasNext()) {
-                name = inp.next();
+            while (inp.nextToken()) {
+                name = inp.name(inp.start(), inp.end());
                 _ages.put(name, inp.nextInt());
             }
-            inp.close();
         } catch (NoSuchElementException excp) {
             error("Near entry for %s: %s", name, excp.getMessage());
         } catch (FileNotFoundException excp) {
             error("File not found error.");
+        } catch (IOException excp) {
+            error("Could not read %s: %s", fileInfoName, excp.getMessage());
         }
     }
 
     /** Read make rules from the file named MAKEFILENAME and form the dependence
-     *  graph with targets as vertices. Fixed. */
+     *  graph with targets as vertices.  Each line is a comment or blank,
+     *  a rule header (TARGET: DEPENDENCIES), or an indented command for
+     *  the preceding header.  The rule for a header and for each of its
+     *  dependencies is created as the header is read, and its commands are
+     *  added when the next header (or the end) is reached. */
     void readMakefile(String makefileName) {
-        Scanner inp;
-        String target;
-        ArrayList<String> dependencies;
-        ArrayList<String> commands;
-
-        target = null;
-        dependencies = null;
-        commands = null;
-        try {
-            inp = new Scanner(new File(makefileName));
-        } catch (FileNotFoundException excp) {
-            error("Could not find makefile: %s", makefileName);
-            return;
-        }
+        Rule rule;
+        ArrayList<String> commands = new ArrayList<>();
 
-        while (inp.hasNextLine()) {
-            String line = inp.nextLine();
-            Matcher parsed;
-            parsed = IGNORED.matcher(line);
-            if (parsed.matches()) {
-                continue;
-            }
-            parsed = HEADER.matcher(line);
-            if (parsed.matches()) {
-                addRule(target, dependencies, commands);
-                target = parsed.group(1);
-                if (!TARGETS.matcher(target).matches()) {
-                    error("Bad target: '%s'", target);
+        rule = null;
+        try (ByteScanner inp = new ByteScanner(makefileName, _names)) {
+            while (inp.nextLine()) {
+                byte[] line = inp.buffer();
+                int start = inp.start(), end = inp.end();
+                int p = skipSpaces(line, start, end);
+                if (p == end || line[p] == '#') {
+                    continue;
+                }
+                if (p > start && rule != null) {
+                    commands.add(inp.text(start, end));
+                    continue;
+                }
+                int colon = start;
+                while (colon < end && line[colon] != ':'
+                       && !isSpace(line[colon])) {
+                    colon += 1;
+                }
+                p = skipSpaces(line, colon, end);
+                if (colon == start || p == end || line[p] != ':') {
+                    error("Erroneous input line: '%s'",
+                          inp.text(start, end));
+                }
+                int first = skipSpaces(line, p + 1, end);
+                int last = end;
+                while (last > first && isSpace(line[last - 1])) {
+                    last -= 1;
                 }
-                if (!TARGETS.matcher(parsed.group(2)).matches()) {
+
+                addCommands(rule, commands);
+                if (containsAny(line, start, colon, BAD_TARGET_CHARS)) {
+                    error("Bad target: '%s'", inp.text(start, colon));
+                }
+                if (containsAny(line, first, last, BAD_TARGET_CHARS)) {
                     error("One or more bad prerequisites: '%s'",
-                          parsed.group(2));
+                          inp.text(first, last));
                 }
-                dependencies = new ArrayList<>();
-                if (!parsed.group(2).isEmpty()) {
-                    dependencies.addAll(asList(SPACES.split(parsed.group(2))));
+                rule = addRule(inp.name(start, colon));
+                for (int k = first; k < last; ) {
+                    int e;
+                    for (e = k; e < last && !isBlank(line[e]); e += 1) {
+                        continue;
+                    }
+                    rule.addDependency(addRule(inp.name(k, e)));
+                    for (k = e; k < last && isBlank(line[k]); k += 1) {
+                        continue;
+                    }
                 }
-                commands = new ArrayList<>();
-                continue;
-            }
-            parsed = COMMAND.matcher(line);
-            if (target != null && parsed.matches()) {
-                commands.add(parsed.group(1));
-            } else {
-                error("Erroneous input line: '%s'", line);
             }
+        } catch (FileNotFoundException excp) {
+            error("Could not find makefile: %s", makefileName);
+        } catch (IOException excp) {
+            error("Could not read makefile: %s", makefileName);
         }
-        addRule(target, dependencies, commands);
-    }
-
-    /** Add rule
-     *      TARGET: DEPENDENCIES
-     *          COMMANDS
-     *  to makegraph, or add DEPENDENCIES and COMMANDS to that rule, if it
-     *  already exists.  Returns the rule. */
-    private Rule addRule(String target,
-                         List<String> dependencies,
-                         List<String> commands) {
-        if (target != null) {
-            Rule rule;
-            rule = _targets.get(target);
-            if (rule == null) {
-                rule = new Rule(this, target);
-                _targets.put(target, rule);
-            }
-            for (String dependency: dependencies) {
-                Rule depRule = addRule(dependency,
-                                       Collections.<String>emptyList(),
-                                       Collections.<String>emptyList());
-                rule.addDependency(depRule);
-            }
+        addCommands(rule, commands);
+    }
+
+    /** Add COMMANDS to RULE, if it is not null, and clear COMMANDS. */
+    private static void addCommands(Rule rule, ArrayList<String> commands) {
+        if (rule != null) {
             rule.addCommands(commands);
-            return rule;
-        } else {
-            return null;
         }
+        commands.clear();
+    }
+
+    /** Returns the position of the first byte of LINE[START .. END-1] that
+     *  is not a space, or END if there is none. */
+    private static int skipSpaces(byte[] line, int start, int end) {
+        while (start < end && isSpace(line[start])) {
+            start += 1;
+        }
+        return start;
+    }
+
+    /** Returns true iff B is a whitespace character in a makefile line
+     *  (those matched by \s in a regular expression). */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    /** Returns true iff B separates dependencies (a blank or tab). */
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /** Returns true iff some byte of LINE[START .. END-1] is one of
+     *  CHARS. */
+    private static boolean containsAny(byte[] line, int start, int end,
+                                       String chars) {
+        for (int i = start; i < end; i += 1) {
+            if (chars.indexOf(line[i]) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Read make rules as for readMakefile(MAKEFILENAME), but take them
+     *  from the cache file named CACHENAME instead if it is up to date with
+     *  the makefile, and otherwise update the cache after reading. */
+    void readMakefile(String makefileName, String cacheName) {
+        MakefileCache cache = new MakefileCache(makefileName, cacheName);
+        if (!cache.load(this)) {
+            readMakefile(makefileName);
+            cache.save(this);
+        }
+    }
+
+    /** Add a new rule for TARGET with COMMANDS and no dependencies, and
+     *  return it.  Used when loading cached rules. */
+    Rule defineRule(String target, List<String> commands) {
+        Rule rule = new Rule(this, target);
+        _targets.put(target, rule);
+        rule.addCommands(commands);
+        return rule;
+    }
+
+    /** Remove all rules. */
+    void discardRules() {
+        _depends = new Depends();
+        _targets.clear();
+        _missing.clear();
+        _missingChecked = 0;
+    }
+
+    /** Returns the rule for TARGET, first adding one with no dependencies
+     *  or commands to makegraph if there is none. */
+    private Rule addRule(String target) {
+        Rule rule;
+        rule = _targets.get(target);
+        if (rule == null) {
+            rule = new Rule(this, target);
+            _targets.put(target, rule);
+        }
+        return rule;
     }
 
     /** Issue instructions to build TARGET. */
     void build(String target) {
-        Rule targetRule = addRule(target, Collections.<String>emptyList(),
-                                  Collections.<String>emptyList());
-        int v = targetRule.getVertex();
-        if (_traversal == null) {
-            _traversal = new MakeTraversal();
-            _traversal.traverse(v);
+        build(Collections.singletonList(target));
+    }
+
+    /** Issue instructions to build TARGETS.  One job at a time, they are
+     *  built in order; with more, all are scheduled at once, so that work
+     *  on one may overlap work on another. */
+    void build(List<String> targets) {
+        ArrayList<Rule> rules = new ArrayList<>();
+        for (String target : targets) {
+            rules.add(addRule(target));
+        }
+        if (_incremental) {
+            propagateChanges();
+            rules.removeIf((rule) -> !rule.isDirty());
+        }
+        if (rules.isEmpty()) {
+            return;
+        } else if (_jobs > 1) {
+            new Scheduler(_depends, _jobs).build(rules);
         } else {
-            _traversal.traverse(v);
+            if (_traversal == null) {
+                _traversal = new MakeTraversal();
+            }
+            for (Rule rule : rules) {
+                _traversal.traverse(rule.getVertex());
+            }
+        }
+    }
+
+    /** Rebuild up to JOBS targets at once in subsequent calls to build.
+     *  With JOBS > 1, targets are rebuilt as soon as their dependencies
+     *  are, so the order of rebuilding may differ from run to run. */
+    void setJobs(int jobs) {
+        _jobs = jobs;
+    }
+
+    /** Build incrementally iff INCREMENTAL.  Instead of examining every
+     *  target on which a requested target depends, an incremental build
+     *  starts from the targets that are missing or older than one of their
+     *  prerequisites and marks everything that depends on them, directly
+     *  or indirectly, as dirty.  Only dirty targets are then visited and
+     *  rebuilt (in the same order as otherwise); the rest count as already
+     *  up to date.  Finding the starting targets, however, means comparing
+     *  each file in the file information with everything that depends on
+     *  it directly, which the first build does for the whole makefile;
+     *  even a build with nothing to do costs that much.  Only later builds
+     *  from the same Maker do work proportional to the size of the
+     *  change rather than that of the makefile. */
+    void setIncremental(boolean incremental) {
+        _incremental = incremental;
+    }
+
+    /** Return true iff building incrementally. */
+    boolean isIncremental() {
+        return _incremental;
+    }
+
+    /** Record that RULE, which has just been created, has no file. */
+    void addMissing(Rule rule) {
+        _missing.add(rule);
+    }
+
+    /** Mark dirty all Rules that may be out of date: those without files,
+     *  those older than one of their prerequisites, and all Rules that
+     *  depend on those, directly or indirectly.  The first call examines
+     *  every file in the file information and every Rule that depends
+     *  directly on one, and so takes time proportional to the size of the
+     *  whole dependence graph; later calls need only deal with Rules
+     *  created since. */
+    private void propagateChanges() {
+        ArrayList<Rule> work = new ArrayList<>();
+        if (!_agesChecked) {
+            _agesChecked = true;
+            for (Map.Entry<String, Integer> entry : _ages.entrySet()) {
+                Rule rule = _targets.get(entry.getKey());
+                if (rule == null) {
+                    continue;
+                }
+                for (int u : _depends.predecessors(rule.getVertex())) {
+                    Rule dependent = _depends.getLabel(u);
+                    Integer time = dependent.getTime();
+                    if (time != null && time < entry.getValue()) {
+                        markDirty(dependent, work);
+                    }
+                }
+            }
+        }
+        for (; _missingChecked < _missing.size(); _missingChecked += 1) {
+            markDirty(_missing.get(_missingChecked), work);
+        }
+        while (!work.isEmpty()) {
+            Rule rule = work.remove(work.size() - 1);
+            for (int u : _depends.predecessors(rule.getVertex())) {
+                markDirty(_depends.getLabel(u), work);
+            }
+        }
+    }
+
+    /** Mark RULE dirty, adding it to WORK if it was not already. */
+    private void markDirty(Rule rule, ArrayList<Rule> work) {
+        if (!rule.isDirty()) {
+            rule.markDirty();
+            work.add(rule);
         }
     }
 
@@ -173,6 +322,18 @@ class Maker {
     private HashMap<String, Integer> _ages = new HashMap<>();
     /** Mapping of target names to their Rules. */
     private HashMap<String, Rule> _targets = new HashMap<>();
+    /** The names read from the file information and the makefile. */
+    private final NameTable _names = new NameTable();
+    /** Maximum number of targets rebuilt at once. */
+    private int _jobs = 1;
+    /** True iff building incrementally. */
+    private boolean _incremental;
+    /** Rules created without files, in order of creation. */
+    private ArrayList<Rule> _missing = new ArrayList<>();
+    /** Number of Rules in _missing already marked dirty. */
+    private int _missingChecked;
+    /** True iff propagateChanges has examined the file information. */
+    private boolean _agesChecked;
     /** Depth-first traversal of my vertices. */
     private MakeTraversal _traversal;
 
@@ -193,6 +354,12 @@ class Maker {
         protected boolean shouldPostVisit(int v) {
             return true;
         }
+
+        @Override
+        protected boolean processSuccessor(int u, int v) {
+            return super.processSuccessor(u, v)
+                && (!_incremental || _depends.getLabel(v).isDirty());
+        }
     }
 
 }
@@ -0,0 +1,107 @@
+package make;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/** A table of the names (targets and files) read from input, which turns
+ *  each distinct sequence of bytes into a String just once.  Later
+ *  occurrences of the same bytes yield the same String, without decoding
+ *  or allocating anything, so a name mentioned many times in a makefile
+ *  costs little more than one mentioned once, and the HashMaps keyed by
+ *  names compare them by identity.
+ *  @author Yuan Xie.
+ */
+class NameTable {
+
+    /** An empty table that decodes names using the default character set,
+     *  as Scanner does. */
+    NameTable() {
+        _charset = Charset.defaultCharset();
+        _keys = new byte[INITIAL_CAPACITY][];
+        _hashes = new int[INITIAL_CAPACITY];
+        _names = new String[INITIAL_CAPACITY];
+    }
+
+    /** Returns the name whose bytes are BUF[START .. END-1]. */
+    String get(byte[] buf, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i += 1) {
+            h = 31 * h + buf[i];
+        }
+        int mask = _keys.length - 1;
+        int k;
+        for (k = mix(h) & mask; _keys[k] != null; k = (k + 1) & mask) {
+            if (_hashes[k] == h && matches(_keys[k], buf, start, end)) {
+                return _names[k];
+            }
+        }
+        String name = new String(buf, start, end - start, _charset);
+        _keys[k] = Arrays.copyOfRange(buf, start, end);
+        _hashes[k] = h;
+        _names[k] = name;
+        _size += 1;
+        if (2 * _size > _keys.length) {
+            grow();
+        }
+        return name;
+    }
+
+    /** Returns true iff KEY is the same as BUF[START .. END-1]. */
+    private static boolean matches(byte[] key, byte[] buf,
+                                   int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i += 1) {
+            if (key[i] != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns H with its bits spread, so that similar names do not
+     *  cluster in the table. */
+    private static int mix(int h) {
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Double my capacity. */
+    private void grow() {
+        byte[][] keys = _keys;
+        int[] hashes = _hashes;
+        String[] names = _names;
+        int n = 2 * keys.length;
+        _keys = new byte[n][];
+        _hashes = new int[n];
+        _names = new String[n];
+        for (int j = 0; j < keys.length; j += 1) {
+            if (keys[j] != null) {
+                int k;
+                for (k = mix(hashes[j]) & (n - 1); _keys[k] != null;
+                     k = (k + 1) & (n - 1)) {
+                    continue;
+                }
+                _keys[k] = keys[j];
+                _hashes[k] = hashes[j];
+                _names[k] = names[j];
+            }
+        }
+    }
+
+    /** Initial capacity; must be a power of 2. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Encoding of the input. */
+    private final Charset _charset;
+    /** The bytes of each name, in an open-addressed table whose length is
+     *  always a power of 2, and no more than half full. */
+    private byte[][] _keys;
+    /** _hashes[K] is the hash of _keys[K]. */
+    private int[] _hashes;
+    /** _names[K] is the String for _keys[K]. */
+    private String[] _names;
+    /** Number of names in me. */
+    private int _size;
+}
@@ -0,0 +1,214 @@
+package make;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static make.UnitTest.build;
+import static make.UnitTest.make;
+import static make.UnitTest.maker;
+import static make.UnitTest.tempFile;
+
+/** Unit tests for reading makefiles and file information: the
+ *  ByteScanner and NameTable classes, and the parsing in Maker.
+ *  @author Yuan Xie.
+ */
+public class ParserTest {
+
+    @Test
+    public void testLines() throws IOException {
+        String text = "a\r\nbb\rccc\n\n\r\r\n  dddd e  \r\nfffff\r";
+        String[] expected = { "a", "bb", "ccc", "", "", "", "  dddd e  ",
+                              "fffff" };
+        File file = tempFile(".txt", text);
+        for (int size = 1; size <= BUFFER_SIZES; size += 1) {
+            ArrayList<String> lines = new ArrayList<>();
+            try (ByteScanner inp = new ByteScanner(file.getPath(),
+                                                   new NameTable(), size)) {
+                while (inp.nextLine()) {
+                    lines.add(inp.text(inp.start(), inp.end()));
+                }
+            }
+            assertEquals(Arrays.asList(expected), lines);
+        }
+        assertEquals(Arrays.asList("x"),
+                     lines(tempFile(".txt", "x\n"), 2));
+        assertEquals(Arrays.asList(), lines(tempFile(".txt", ""), 2));
+    }
+
+    @Test
+    public void testTokens() throws IOException {
+        String text = "  alpha\tbeta\r\n\n gamma_delta_epsilon \u000bz\r"
+            + "alpha  beta\f" + "omega";
+        String[] expected = text.trim().split("[ \\t\\n\\x0B\\f\\r]+");
+        File file = tempFile(".txt", text);
+        for (int size = 1; size <= BUFFER_SIZES; size += 1) {
+            ArrayList<String> tokens = new ArrayList<>();
+            ArrayList<String> names = new ArrayList<>();
+            try (ByteScanner inp = new ByteScanner(file.getPath(),
+                                                   new NameTable(), size)) {
+                while (inp.nextToken()) {
+                    tokens.add(inp.text(inp.start(), inp.end()));
+                    names.add(inp.name(inp.start(), inp.end()));
+                }
+            }
+            assertEquals(Arrays.asList(expected), tokens);
+            assertEquals(tokens, names);
+            assertSame(names.get(0), names.get(4));
+            assertSame(names.get(1), names.get(5));
+        }
+    }
+
+    @Test
+    public void testNextInt() throws IOException {
+        String[] tokens = { "0", "17", "-42", "+7", "2147483647",
+                            "-2147483648", "123456789", "1234567890",
+                            "2147483648", "9999999999", "1,000", "12a",
+                            "-", "+", "0x10", "007" };
+        for (String token : tokens) {
+            File file = tempFile(".txt", "  " + token + "\n");
+            for (int size = 1; size <= BUFFER_SIZES; size += 1) {
+                try (ByteScanner inp = new ByteScanner(file.getPath(),
+                                                       new NameTable(),
+                                                       size)) {
+                    assertEquals(token, scannerInt(token), nextInt(inp));
+                }
+            }
+        }
+        try (ByteScanner inp = new ByteScanner(tempFile(".txt", " \n")
+                                               .getPath(),
+                                               new NameTable(), 1)) {
+            inp.nextInt();
+            fail("read an int from an empty file");
+        } catch (NoSuchElementException excp) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void testLineEndsAndComments() {
+        String makefile = "# A comment\n\na: b c\n\tbuild a\n   # indented\n"
+            + "\n\tmore a\nb: c   \n\tbuild b\n  \t\nc:\n\tbuild c\n";
+        String fileInfo = "100\nb 10\nc 20\n";
+        String expected = make(makefile, fileInfo, 1, false, "a");
+        assertEquals("\tbuild b\n\tbuild a\n\tmore a\n",
+                     expected.replace(System.lineSeparator(), "\n"));
+        assertEquals(expected,
+                     make(makefile.replace("\n", "\r\n"),
+                          fileInfo.replace("\n", "\r\n"), 1, false, "a"));
+        assertEquals(expected,
+                     make(makefile.replace("\n", "\r"),
+                          fileInfo.replace("\n", "\r"), 1, false, "a"));
+    }
+
+    @Test
+    public void testMakefileErrors() {
+        String[][] cases = {
+            { "a: b\n\tbuild a\nfoo bar\n",
+              "Erroneous input line: 'foo bar'" },
+            { "\tbuild a\na: b\n", "Erroneous input line: '\tbuild a'" },
+            { ": b\n", "Erroneous input line: ': b'" },
+            { "a b: c\n", "Erroneous input line: 'a b: c'" },
+            { "a=b: c\n", "Bad target: 'a=b'" },
+            { "a\\b : c\n", "Bad target: 'a\\b'" },
+            { "a: b#c d  \n", "One or more bad prerequisites: 'b#c d'" },
+            { "a: b:c\n", "One or more bad prerequisites: 'b:c'" },
+            { "a: b = c\n", "One or more bad prerequisites: 'b = c'" },
+        };
+        for (String[] test : cases) {
+            for (String end : new String[] { "\n", "\r\n", "\r" }) {
+                File makefile =
+                    tempFile(".mk", test[0].replace("\n", end));
+                try {
+                    maker(makefile, tempFile(".dir", "10\n"), 1, false);
+                    fail("accepted bad makefile: " + test[0]);
+                } catch (IllegalArgumentException excp) {
+                    assertEquals(test[1], excp.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFileInfoErrors() {
+        String[] cases = {
+            "", "\n", "x\n", "10\na\n", "10\na b\n", "10\na 1 b\n",
+            "10\na 99999999999\n", "9999999999\n", "10\na -3 b 4x\n",
+            "10\r\na 1\r\nb 1.5\r\n",
+        };
+        File makefile = tempFile(".mk", "a:\n\tbuild a\n");
+        for (String text : cases) {
+            try {
+                maker(makefile, tempFile(".dir", text), 1, false);
+                fail("accepted bad file information: " + text);
+            } catch (IllegalArgumentException excp) {
+                assertEquals(text, scannerAgesError(text),
+                             excp.getMessage());
+            }
+        }
+        assertEquals("", build(maker(makefile,
+                                     tempFile(".dir", "10\n a  +5 \n"), 1,
+                                     false), "a"));
+    }
+
+    /** Returns the lines read from FILE with a buffer of SIZE bytes. */
+    private static ArrayList<String> lines(File file, int size)
+        throws IOException {
+        ArrayList<String> result = new ArrayList<>();
+        try (ByteScanner inp = new ByteScanner(file.getPath(),
+                                               new NameTable(), size)) {
+            while (inp.nextLine()) {
+                result.add(inp.text(inp.start(), inp.end()));
+            }
+        }
+        return result;
+    }
+
+    /** Returns the result of INP.nextInt(), or the name of the class of
+     *  exception it throws. */
+    private static String nextInt(ByteScanner inp) throws IOException {
+        try {
+            return Integer.toString(inp.nextInt());
+        } catch (NoSuchElementException excp) {
+            return excp.getClass().getName();
+        }
+    }
+
+    /** Returns the result of reading an int from TOKEN with a Scanner, or
+     *  the name of the class of exception it throws. */
+    private static String scannerInt(String token) {
+        try {
+            return Integer.toString(new Scanner(token).nextInt());
+        } catch (NoSuchElementException excp) {
+            return excp.getClass().getName();
+        }
+    }
+
+    /** Returns the error message that reading the file information TEXT
+     *  gave when it was read with a Scanner, or null if it gave none. */
+    private static String scannerAgesError(String text) {
+        String name = "<unknown>";
+        try {
+            Scanner inp = new Scanner(text);
+            inp.nextInt();
+            while (inp.hasNext()) {
+                name = inp.next();
+                inp.nextInt();
+            }
+            return null;
+        } catch (NoSuchElementException excp) {
+            return String.format("Near entry for %s: %s", name,
+                                 excp.getMessage());
+        }
+    }
+
+    /** Buffer sizes from 1 to this are tried. */
+    private static final int BUFFER_SIZES = 12;
+}
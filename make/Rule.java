@@ -18,6 +18,9 @@ class Rule {
         _vertex = _depends.add(this);
         _time = _maker.getInitialAge(target);
         _finished = false;
+        if (_time == null) {
+            _maker.addMissing(this);
+        }
     }
 
     /** Add the target of DEPENDENT to my dependencies. Fixed. */
@@ -52,9 +55,31 @@ class Rule {
         return _time;
     }
 
-    /** Return true iff I have not yet been brought up to date. */
+    /** Return my commands. */
+    List<String> getCommands() {
+        return _commands;
+    }
+
+    /** Return the number of my commands. */
+    int commandCount() {
+        return _commands.size();
+    }
+
+    /** Return true iff I have not yet been brought up to date.  When my
+     *  Maker is building incrementally, Rules not marked dirty are up to
+     *  date already, and so count as finished. */
     boolean isUnfinished() {
-        return !_finished;
+        return !_finished && (_dirty || !_maker.isIncremental());
+    }
+
+    /** Return true iff I have been marked as possibly out of date. */
+    boolean isDirty() {
+        return _dirty;
+    }
+
+    /** Mark me as possibly out of date. */
+    void markDirty() {
+        _dirty = true;
     }
 
     /** Check that dependencies are in fact built before it's time to rebuild
@@ -85,7 +110,9 @@ class Rule {
     }
 
     /** Rebuild me, if needed, after checking that all dependencies are rebuilt
-     *  (error otherwise). Fixed. */
+     *  (error otherwise).  My commands are printed all at once, so that
+     *  they are not interleaved with those of Rules rebuilt concurrently.
+     *  Fixed. */
     void rebuild() {
         checkFinishedDependencies();
 
@@ -94,9 +121,11 @@ class Rule {
                 error("%s needs to be rebuilt, but has no commands error",
                       _target);
             }
+            StringBuilder output = new StringBuilder();
             for (String command: _commands) {
-                System.out.println(command);
+                output.append(command).append(System.lineSeparator());
             }
+            System.out.print(output);
             _time = _maker.getCurrentTime();
         }
         _finished = true;
@@ -114,6 +143,8 @@ class Rule {
     private ArrayList<String> _commands = new ArrayList<>();
     /** True iff I have been brought up to date. */
     private boolean _finished;
+    /** True iff I may be out of date (used when building incrementally). */
+    private boolean _dirty;
     /** My change time, or null if I don't exist. */
     private Integer _time;
 }
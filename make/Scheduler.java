@@ -0,0 +1,232 @@
+package make;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static make.Main.error;
+
+/** Brings targets up to date by running the Rules on which they depend on
+ *  a pool of worker threads, as many at a time as their dependencies
+ *  allow.  Each Rule waits until all its dependencies have finished, and
+ *  among the Rules that are ready, those with the most work remaining
+ *  between them and the requested target (the longest critical path,
+ *  weighing each Rule by its number of commands) go first.  Each Rule
+ *  prints its commands all at once, so the output for one target is never
+ *  interleaved with that of another, although the order of targets may
+ *  vary from run to run.
+ *  @author Yuan Xie.
+ */
+class Scheduler {
+
+    /** A scheduler for the Rules in DEPENDS that runs up to JOBS of them
+     *  at once. */
+    Scheduler(Depends depends, int jobs) {
+        _depends = depends;
+        _jobs = jobs;
+    }
+
+    /** Bring TARGETS up to date, rebuilding any of their direct or
+     *  indirect dependencies that are not already finished.  The Rules
+     *  for all TARGETS are scheduled together, so that work for one may
+     *  overlap work for another.  Rethrows anything thrown by a Rule, once
+     *  the Rules already started have stopped.  If interrupted, likewise
+     *  starts no more Rules, and reports an error once those running have
+     *  stopped. */
+    void build(List<Rule> targets) {
+        int n = _depends.maxVertex();
+        _pending = new int[n + 1];
+        _priority = new int[n + 1];
+        ArrayList<Rule> rules = collect(targets);
+        if (rules.isEmpty()) {
+            return;
+        }
+        prioritize(rules);
+
+        _ready = new PriorityQueue<>((v, w) -> {
+            int c = Integer.compare(_priority[w], _priority[v]);
+            return c != 0 ? c : Integer.compare(v, w);
+        });
+        for (Rule rule : rules) {
+            if (_pending[rule.getVertex()] == 0) {
+                _ready.add(rule.getVertex());
+            }
+        }
+        _running = 0;
+        _failure = null;
+
+        boolean interrupted = false;
+        ExecutorService pool = Executors.newFixedThreadPool(_jobs);
+        try {
+            synchronized (this) {
+                while (true) {
+                    while (!interrupted && _failure == null
+                           && _running < _jobs && !_ready.isEmpty()) {
+                        Rule rule = _depends.getLabel(_ready.remove());
+                        _running += 1;
+                        pool.execute(() -> run(rule));
+                    }
+                    if (_running == 0) {
+                        break;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException excp) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            ArrayList<String> names = new ArrayList<>();
+            for (Rule target : targets) {
+                names.add(target.getTarget());
+            }
+            error("Interrupted while building %s", String.join(" ", names));
+        }
+
+        if (_failure instanceof RuntimeException) {
+            throw (RuntimeException) _failure;
+        } else if (_failure instanceof Error) {
+            throw (Error) _failure;
+        } else if (_failure != null) {
+            throw new IllegalStateException(_failure);
+        }
+        for (Rule target : targets) {
+            if (target.isUnfinished()) {
+                error("Dependencies are not built error.");
+            }
+        }
+    }
+
+    /** Returns the unfinished Rules reachable from the vertices of
+     *  TARGETS, and sets _pending for each to the number of its
+     *  unfinished dependencies. */
+    private ArrayList<Rule> collect(List<Rule> targets) {
+        ArrayList<Rule> result = new ArrayList<>();
+        boolean[] seen = new boolean[_pending.length];
+        ArrayList<Integer> stack = new ArrayList<>();
+        for (Rule target : targets) {
+            if (!seen[target.getVertex()]) {
+                seen[target.getVertex()] = true;
+                stack.add(target.getVertex());
+            }
+        }
+        while (!stack.isEmpty()) {
+            int v = stack.remove(stack.size() - 1);
+            Rule rule = _depends.getLabel(v);
+            if (!rule.isUnfinished()) {
+                continue;
+            }
+            result.add(rule);
+            for (int w : _depends.successors(v)) {
+                if (_depends.getLabel(w).isUnfinished()) {
+                    _pending[v] += 1;
+                    if (!seen[w]) {
+                        seen[w] = true;
+                        stack.add(w);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Set _priority for each of RULES, which are the unfinished Rules
+     *  reachable from the requested targets, to the total cost of the most
+     *  costly chain of Rules from it up to one on which no other of RULES
+     *  depends.  Rules on dependency cycles are left with priority 0 (they
+     *  will never become ready). */
+    private void prioritize(ArrayList<Rule> rules) {
+        int[] dependents = new int[_pending.length];
+        for (Rule rule : rules) {
+            for (int w : _depends.successors(rule.getVertex())) {
+                if (_depends.getLabel(w).isUnfinished()) {
+                    dependents[w] += 1;
+                }
+            }
+        }
+        ArrayList<Integer> queue = new ArrayList<>();
+        for (Rule rule : rules) {
+            int v = rule.getVertex();
+            if (dependents[v] == 0) {
+                queue.add(v);
+                _priority[v] = cost(v);
+            }
+        }
+        for (int k = 0; k < queue.size(); k += 1) {
+            int v = queue.get(k);
+            for (int w : _depends.successors(v)) {
+                if (_depends.getLabel(w).isUnfinished()) {
+                    _priority[w] =
+                        Math.max(_priority[w], _priority[v] + cost(w));
+                    dependents[w] -= 1;
+                    if (dependents[w] == 0) {
+                        queue.add(w);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Returns the cost charged for rebuilding the Rule at vertex V. */
+    private int cost(int v) {
+        return 1 + _depends.getLabel(v).commandCount();
+    }
+
+    /** Rebuild RULE on a worker thread, and then make ready any Rules that
+     *  were waiting only for it. */
+    private void run(Rule rule) {
+        Throwable failure = null;
+        try {
+            rule.rebuild();
+        } catch (Throwable excp) {
+            failure = excp;
+        } finally {
+            finish(rule, failure);
+        }
+    }
+
+    /** Record that RULE has stopped running, having thrown FAILURE if it
+     *  is not null, and make ready any Rules that were waiting only for
+     *  it. */
+    private synchronized void finish(Rule rule, Throwable failure) {
+        _running -= 1;
+        if (failure != null) {
+            if (_failure == null) {
+                _failure = failure;
+            }
+        } else {
+            for (int u : _depends.predecessors(rule.getVertex())) {
+                if (_pending[u] > 0) {
+                    _pending[u] -= 1;
+                    if (_pending[u] == 0) {
+                        _ready.add(u);
+                    }
+                }
+            }
+        }
+        notifyAll();
+    }
+
+    /** The dependency graph. */
+    private final Depends _depends;
+    /** Maximum number of Rules run at once. */
+    private final int _jobs;
+    /** _pending[V] is the number of unfinished dependencies of the Rule at
+     *  vertex V, among those being built. */
+    private int[] _pending;
+    /** _priority[V] is the length of the critical path from V. */
+    private int[] _priority;
+    /** Vertices of Rules ready to run, highest priority first. */
+    private PriorityQueue<Integer> _ready;
+    /** Number of Rules currently running. */
+    private int _running;
+    /** The first exception or error thrown by a Rule, or null. */
+    private Throwable _failure;
+}
@@ -0,0 +1,180 @@
+package make;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static make.UnitTest.build;
+import static make.UnitTest.make;
+import static make.UnitTest.maker;
+import static make.UnitTest.randomFileInfo;
+import static make.UnitTest.randomMakefile;
+import static make.UnitTest.tempFile;
+
+/** Unit tests for building with several jobs at once (the Scheduler).
+ *  @author Yuan Xie.
+ */
+public class SchedulerTest {
+
+    @Test
+    public void testSameCommands() {
+        for (int seed = 1; seed <= 5; seed += 1) {
+            String makefile = randomMakefile(new Random(seed), 300, null);
+            String fileInfo = randomFileInfo(new Random(seed), 300, 0.5);
+            String[] sequential =
+                lines(make(makefile, fileInfo, 1, false, "T0", "T1"));
+            String[] parallel =
+                lines(make(makefile, fileInfo, 4, false, "T0", "T1"));
+            assertTrue(sequential.length > 0);
+            Arrays.sort(sequential);
+            Arrays.sort(parallel);
+            assertArrayEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void testPrerequisitesFirst() {
+        for (int seed = 1; seed <= 5; seed += 1) {
+            List<List<Integer>> prereqs = new ArrayList<>();
+            String makefile = randomMakefile(new Random(seed), 300, prereqs);
+            String fileInfo = randomFileInfo(new Random(seed), 300, 0);
+            String[] output = lines(make(makefile, fileInfo, 4, false, "T0"));
+            HashMap<String, Integer> position = new HashMap<>();
+            for (int k = 0; k < output.length; k += 1) {
+                position.put(output[k], k);
+            }
+            assertEquals(300, output.length);
+            for (int i = 0; i < 300; i += 1) {
+                int p = position.get("\tbuild T" + i);
+                for (int j : prereqs.get(i)) {
+                    assertTrue(position.get("\tbuild T" + j) < p);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        try {
+            make("a: b c\n\tbuild a\nb: d\nc: d\n\tbuild c\n", "10\nd 5\n",
+                 4, false, "a");
+            fail("missing target without commands was not reported");
+        } catch (IllegalArgumentException excp) {
+            assertEquals("b needs to be rebuilt, but has no commands error",
+                         excp.getMessage());
+        }
+    }
+
+    @Test
+    public void testCycle() {
+        try {
+            make("a: b\n\tbuild a\nb: c\n\tbuild b\nc: b\n\tbuild c\n",
+                 "10\n", 4, false, "a");
+            fail("cycle was not reported");
+        } catch (IllegalArgumentException excp) {
+            assertEquals("Dependencies are not built error.",
+                         excp.getMessage());
+        }
+    }
+
+    @Test
+    public void testInterrupted() {
+        Maker maker =
+            maker(tempFile(".mk", "a: b c\n\tbuild a\nb:\n\tbuild b\n"
+                           + "c:\n\tbuild c\n"),
+                  tempFile(".dir", "10\n"), 2, false);
+        Thread.currentThread().interrupt();
+        try {
+            build(maker, "a");
+            fail("interrupt was not reported");
+        } catch (IllegalArgumentException excp) {
+            assertEquals("Interrupted while building a", excp.getMessage());
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test
+    public void testError() throws InterruptedException {
+        Maker maker =
+            maker(tempFile(".mk", "a: b c\n\tbuild a\nb:\n\tbuild b\n"
+                           + "c:\n\tbuild c\n"),
+                  tempFile(".dir", "10\n"), 2, false);
+        Throwable[] thrown = new Throwable[1];
+        Thread builder = new Thread(() -> {
+            try {
+                withOutput(new PrintStream(new ByteArrayOutputStream()) {
+                    @Override
+                    public void print(Object obj) {
+                        throw new AssertionError("cannot print");
+                    }
+                }, () -> maker.build("a"));
+            } catch (Throwable excp) {
+                thrown[0] = excp;
+            }
+        });
+        builder.start();
+        builder.join(TIMEOUT);
+        assertFalse("build did not stop", builder.isAlive());
+        assertTrue(thrown[0] instanceof AssertionError);
+        assertEquals("cannot print", thrown[0].getMessage());
+    }
+
+    @Test
+    public void testTargetsOverlap() {
+        Maker maker =
+            maker(tempFile(".mk", "a:\n\tbuild a\nb:\n\tbuild b\n"),
+                  tempFile(".dir", "10\n"), 2, false);
+        CountDownLatch printedB = new CountDownLatch(1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        withOutput(new PrintStream(output, true) {
+            @Override
+            public void print(Object obj) {
+                super.print(obj);
+                if (obj.toString().contains("build b")) {
+                    printedB.countDown();
+                    return;
+                }
+                try {
+                    if (!printedB.await(TIMEOUT, TimeUnit.MILLISECONDS)) {
+                        throw new AssertionError("b waited for a");
+                    }
+                } catch (InterruptedException excp) {
+                    throw new AssertionError(excp);
+                }
+            }
+        }, () -> maker.build(Arrays.asList("a", "b")));
+        assertEquals(2, lines(output.toString()).length);
+    }
+
+    /** Run ACTION with the standard output sent to OUT. */
+    private static void withOutput(PrintStream out, Runnable action) {
+        PrintStream stdout = System.out;
+        System.setOut(out);
+        try {
+            action.run();
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    /** Returns the lines of OUTPUT. */
+    private static String[] lines(String output) {
+        return output.isEmpty() ? new String[0]
+            : output.split(System.lineSeparator());
+    }
+
+    /** Milliseconds to wait for another thread before giving up. */
+    private static final long TIMEOUT = 10000;
+
+}
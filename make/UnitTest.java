@@ -5,20 +5,143 @@ package make;
  * may not be part of your make package per se (that is, it must be
  * possible to remove them and still have your package work). */
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 import ucb.junit.textui;
 import static org.junit.Assert.*;
 
-/** Unit tests for the make package. */
+/** Unit tests for the make package.  This class also dispatches the
+ *  other test classes, which are listed in the argument to runClasses,
+ *  and provides them with ways to run builds.
+ *  @author Yuan Xie.
+ */
 public class UnitTest {
 
     /** Run all JUnit tests in the make package. */
     public static void main(String[] ignored) {
-        System.exit(textui.runClasses(make.UnitTest.class));
+        System.exit(textui.runClasses(make.UnitTest.class,
+                                      make.SchedulerTest.class,
+                                      make.MakefileCacheTest.class,
+                                      make.IncrementalTest.class,
+                                      make.ParserTest.class));
     }
 
     @Test
     public void dummyTest() {
     }
 
+    /** Returns a new temporary file, deleted on exit, whose name ends
+     *  in SUFFIX and whose contents are TEXT. */
+    static File tempFile(String suffix, String text) {
+        try {
+            File file = File.createTempFile("make", suffix);
+            file.deleteOnExit();
+            try (PrintWriter out = new PrintWriter(file)) {
+                out.print(text);
+            }
+            return file;
+        } catch (IOException excp) {
+            throw new AssertionError(excp);
+        }
+    }
+
+    /** Returns a Maker that has read the makefile MAKEFILE and the file
+     *  information FILEINFO, and that rebuilds up to JOBS targets at once,
+     *  incrementally iff INCREMENTAL. */
+    static Maker maker(File makefile, File fileInfo, int jobs,
+                       boolean incremental) {
+        Maker maker = new Maker();
+        maker.setIncremental(incremental);
+        maker.setJobs(jobs);
+        maker.readFileAges(fileInfo.getPath());
+        maker.readMakefile(makefile.getPath());
+        return maker;
+    }
+
+    /** Returns the standard output written while building TARGETS with
+     *  MAKER. */
+    static String build(Maker maker, String... targets) {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            maker.build(Arrays.asList(targets));
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+
+    /** Returns the standard output written while building TARGETS, up to
+     *  JOBS at once and incrementally iff INCREMENTAL, using the makefile
+     *  whose text is MAKEFILE and file information whose text is
+     *  FILEINFO. */
+    static String make(String makefile, String fileInfo, int jobs,
+                       boolean incremental, String... targets) {
+        return build(maker(tempFile(".mk", makefile),
+                           tempFile(".dir", fileInfo), jobs, incremental),
+                     targets);
+    }
+
+    /** Returns the text of a makefile for targets T0 .. T<N-1>, using
+     *  RAND.  T<I> depends on T<2I+1> and T<2I+2>, when those exist, so
+     *  that building T0 reaches every target, on up to two more
+     *  higher-numbered targets chosen at random, and perhaps on one of
+     *  the sources S0 .. S9, which have no rules.  Its command is
+     *  "build T<I>".  If PREREQS is not null, adds to it the
+     *  numbers of the targets on which each depends. */
+    static String randomMakefile(Random rand, int n,
+                                 List<List<Integer>> prereqs) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < n; i += 1) {
+            ArrayList<Integer> mine = new ArrayList<>();
+            text.append("T").append(i).append(":");
+            for (int j = 2 * i + 1; j <= 2 * i + 2 && j < n; j += 1) {
+                mine.add(j);
+                text.append(" T").append(j);
+            }
+            for (int k = 0; k < 2 && i + 1 < n; k += 1) {
+                int j = i + 1 + rand.nextInt(n - i - 1);
+                mine.add(j);
+                text.append(" T").append(j);
+            }
+            if (rand.nextBoolean()) {
+                text.append(" S").append(rand.nextInt(10));
+            }
+            text.append("\n\tbuild T").append(i).append("\n");
+            if (prereqs != null) {
+                prereqs.add(mine);
+            }
+        }
+        return text.toString();
+    }
+
+    /** Returns the text of file information for a makefile from
+     *  randomMakefile(RAND, N, ...), in which the sources exist and each
+     *  target exists with probability EXISTING, all with random ages. */
+    static String randomFileInfo(Random rand, int n, double existing) {
+        StringBuilder text = new StringBuilder("1000\n");
+        for (int i = 0; i < 10; i += 1) {
+            text.append("S").append(i).append(" ")
+                .append(rand.nextInt(1000)).append("\n");
+        }
+        for (int i = 0; i < n; i += 1) {
+            if (rand.nextDouble() < existing) {
+                text.append("T").append(i).append(" ")
+                    .append(rand.nextInt(1000)).append("\n");
+            }
+        }
+        return text.toString();
+    }
+
 }
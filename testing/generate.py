@@ -0,0 +1,181 @@
+#!/usr/bin/env python3
+# -*-Python-*-
+
+"""Generate large, random inputs for the make and trip programs, for
+measuring their throughput and memory use.  The same arguments (including
+the seed) always produce the same files.
+
+Usage:
+    python3 generate.py trip [ -s SEED ] [ -n SIDE ] [ -H SPACING ]
+                             [ -d DROP ] [ -k STOPS ] [ -r REQUESTS ] PREFIX
+    python3 generate.py make [ -s SEED ] [ -l LAYERS ] [ -w WIDTH ]
+                             [ -i FANIN ] [ -o FANOUT ] [ -x STALE ]
+                             [ -t TARGETS ] PREFIX
+
+'trip' writes a map, PREFIX.map, whose locations P<I>_<J> lie on a
+SIDE x SIDE grid (default 300) about a mile apart, with a little jitter.
+Each is joined by a winding local road to its neighbors to the east and
+north, except that a fraction DROP (default 0.1) of the north-south roads
+not in the westernmost column are left out (the map remains connected).
+Every SPACING-th row and column (default 10, and at least 2) also
+carries a straight highway that joins every SPACING-th location on it,
+so that long routes prefer highways.  A SIDE of 1000 gives about two
+million roads.  It also writes PREFIX.in, a request for one trip through
+STOPS random locations (default 5), as given to
+
+    java trip.Main -m PREFIX.map `cat PREFIX.in`
+
+and PREFIX.requests, with REQUESTS single-leg trips (default 1000), one
+per line, as read by
+
+    java trip.Main -m PREFIX.map -d < PREFIX.requests
+
+'make' writes a makefile, PREFIX.mk, and file information, PREFIX.dir,
+describing a layered DAG.  Layer 0 holds WIDTH sources (default 1000),
+which have no rules.  Each target in layer K > 0 depends on FANIN
+(default 4) targets in layer K-1, and each target in layer K-1 is a
+prerequisite of about FANOUT (default 2) targets in layer K, so that each
+layer is FANOUT/FANIN times as wide as the one before.  There are LAYERS
+layers (default 8).  Every source exists; each other target exists, and
+is out of date with respect to its own prerequisites with probability
+STALE (default 0.2) and up to date otherwise.  It also writes PREFIX.in,
+naming up to TARGETS (default 20) targets in the top layer, as read by
+
+    java make.Main -f PREFIX.mk -D PREFIX.dir `cat PREFIX.in`
+"""
+
+import sys
+import math
+import random
+import getopt
+
+def usage():
+    print(__doc__.strip(), file=sys.stderr)
+    sys.exit(1)
+
+def write_lines(name, lines):
+    """Write the strings in LINES to the file NAME, one per line."""
+    with open(name, "w") as out:
+        for line in lines:
+            out.write(line)
+            out.write("\n")
+
+def trip_map(rand, side, spacing, drop):
+    """Yield the lines of a grid map of SIDE x SIDE locations, using RAND,
+    with highways every SPACING rows and columns, and a fraction DROP of
+    the north-south local roads left out."""
+    x = [[i + rand.uniform(-0.3, 0.3) for j in range(side)]
+         for i in range(side)]
+    y = [[j + rand.uniform(-0.3, 0.3) for j in range(side)]
+         for i in range(side)]
+
+    def road(i0, j0, i1, j1, name, direction, winding):
+        length = math.hypot(x[i1][j1] - x[i0][j0], y[i1][j1] - y[i0][j0])
+        return "R P{}_{} {} {:.4f} {} P{}_{}"\
+               .format(i0, j0, name, length * winding, direction, i1, j1)
+
+    for i in range(side):
+        for j in range(side):
+            yield "L P{}_{} {:.4f} {:.4f}".format(i, j, x[i][j], y[i][j])
+    for i in range(side):
+        for j in range(side):
+            if i + 1 < side:
+                yield road(i, j, i + 1, j, "Rd{}".format(j), "WE",
+                           rand.uniform(1.0, 1.6))
+            if j + 1 < side and (i == 0 or rand.random() >= drop):
+                yield road(i, j, i, j + 1, "Av{}".format(i), "SN",
+                           rand.uniform(1.0, 1.6))
+    for k in range(0, side, spacing):
+        for m in range(0, side - spacing, spacing):
+            yield road(m, k, m + spacing, k, "I-{}".format(k), "WE", 1.0)
+            yield road(k, m, k, m + spacing, "US-{}".format(k), "SN", 1.0)
+
+def trip(rand, prefix, side=300, spacing=10, drop=0.1, stops=5,
+         requests=1000):
+    """Write PREFIX.map, PREFIX.in, and PREFIX.requests, using RAND (see
+    the module documentation)."""
+    def location():
+        return "P{}_{}".format(rand.randrange(side), rand.randrange(side))
+
+    write_lines(prefix + ".map", trip_map(rand, side, spacing, drop))
+    write_lines(prefix + ".in",
+                [" ".join(location() for k in range(stops))])
+    write_lines(prefix + ".requests",
+                ("{} {}".format(location(), location())
+                 for k in range(requests)))
+
+def make(rand, prefix, layers=8, width=1000, fanin=4, fanout=2, stale=0.2,
+         targets=20):
+    """Write PREFIX.mk, PREFIX.dir, and PREFIX.in, using RAND (see the
+    module documentation)."""
+    names = [["s{}.c".format(i) for i in range(width)]]
+    ages = { name: rand.randrange(1000) for name in names[0] }
+    rules = []
+    for k in range(1, layers):
+        below = names[-1]
+        slots = below * fanout
+        rand.shuffle(slots)
+        count = max(1, len(slots) // fanin)
+        layer = ["t{}_{}".format(k, i) for i in range(count)]
+        for i, target in enumerate(layer):
+            prereqs = sorted(set(slots[i * fanin: (i + 1) * fanin]))
+            if not prereqs:
+                prereqs = [rand.choice(below)]
+            rules.append((target, prereqs))
+            newest = max(ages[p] for p in prereqs)
+            if rand.random() < stale:
+                ages[target] = max(0, newest - rand.randrange(1, 100))
+            else:
+                ages[target] = newest + rand.randrange(1, 100)
+        names.append(layer)
+
+    def makefile():
+        for target, prereqs in rules:
+            yield "{}: {}".format(target, " ".join(prereqs))
+            yield "\tbuild {}".format(target)
+            yield ""
+
+    def fileinfo():
+        yield str(max(ages.values()) + 1)
+        for name, age in ages.items():
+            yield "{} {}".format(name, age)
+
+    write_lines(prefix + ".mk", makefile())
+    write_lines(prefix + ".dir", fileinfo())
+    write_lines(prefix + ".in", [" ".join(names[-1][:targets])])
+
+def main():
+    if len(sys.argv) < 2 or sys.argv[1] not in ("trip", "make"):
+        usage()
+    kind = sys.argv[1]
+    try:
+        if kind == "trip":
+            flags = { "-n": ("side", int), "-H": ("spacing", int),
+                      "-d": ("drop", float), "-k": ("stops", int),
+                      "-r": ("requests", int) }
+        else:
+            flags = { "-l": ("layers", int), "-w": ("width", int),
+                      "-i": ("fanin", int), "-o": ("fanout", int),
+                      "-x": ("stale", float), "-t": ("targets", int) }
+        opts, args = getopt.getopt(sys.argv[2:],
+                                   "s:" + ":".join(f[1] for f in flags) + ":")
+        seed = 0
+        options = {}
+        for opt, val in opts:
+            if opt == "-s":
+                seed = int(val)
+            else:
+                name, convert = flags[opt]
+                options[name] = convert(val)
+    except (getopt.GetoptError, ValueError):
+        usage()
+    if len(args) != 1 or options.get("spacing", 10) < 2:
+        usage()
+    rand = random.Random(seed)
+    if kind == "trip":
+        trip(rand, args[0], **options)
+    else:
+        make(rand, args[0], **options)
+
+if __name__ == "__main__":
+    main()
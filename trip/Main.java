@@ -1,6 +1,7 @@
 package trip;
 
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.io.FileNotFoundException;
 
@@ -19,19 +20,32 @@ public final class Main {
 
     /** Entry point for the CS61B trip program.  RAWARGS may contain options
      *  and targets:
-     *      [ -m MAP ] [ -o OUT ] [ REQUEST ]
+     *      [ -m MAP ] [ -o OUT ] [ -c ] [ -l K ] [ REQUEST ]
+     *      [ -m MAP ] [ -o OUT ] [ -c ] [ -l K ] [ -r SIZE ] [ -t N ]
+     *          ( -d | -p PORT )
      *  where MAP (default Map) contains the map data, OUT (default standard
      *  output) takes the result, and REQUEST (default standard input) contains
-     *  the locations along the requested trip.
+     *  the locations along the requested trip.  With -c, the map is first
+     *  preprocessed into a contraction hierarchy for faster route queries.
+     *  With -l, searches are guided by distance bounds computed from K
+     *  landmark locations, in addition to straight-line distances.
+     *  With -d, the program instead answers one request per line of the
+     *  standard input, and with -p, one per line sent to local TCP port
+     *  PORT, planning up to N trips at once (see TripServer).  With -r,
+     *  recently planned routes with up to SIZE vertices in all are cached
+     *  and reused (see RouteCache).
      */
     public static void main(String... rawArgs) {
         String mapFileName;
         String outFileName;
         List<String> targets;
         CommandArgs args =
-            new CommandArgs("-m={0,1} -o={0,1} --={2,}", rawArgs);
+            new CommandArgs("-m={0,1} -o={0,1} -c -l={0,1} -r={0,1} "
+                            + "-t={0,1} -d -p={0,1} --={0,}", rawArgs);
+        boolean serving = args.contains("-d") || args.contains("-p");
 
-        if (!args.ok()) {
+        if (!args.ok() || serving != args.get("--").isEmpty()
+            || (!serving && args.get("--").size() < 2)) {
             usage();
         }
 
@@ -45,13 +59,47 @@ public final class Main {
 
         try {
             trip.readMap(mapFileName);
-            trip.makeTrip(targets);
+            if (args.contains("-c")) {
+                trip.useHierarchy();
+            }
+            if (args.contains("-l")) {
+                trip.useLandmarks(count(args.getFirst("-l"), "landmark"));
+            }
+            if (args.contains("-r")) {
+                trip.useRouteCache(count(args.getFirst("-r"), "route cache"));
+            }
+            if (serving) {
+                int threads =
+                    args.contains("-t") ? count(args.getFirst("-t"), "thread")
+                    : Runtime.getRuntime().availableProcessors();
+                serve(trip, threads, args.getFirst("-p"));
+            } else {
+                trip.makeTrip(targets);
+            }
         } catch (IllegalArgumentException excp) {
             System.err.printf("trip: %s%n", excp.getMessage());
             System.exit(1);
         }
     }
 
+    /** Answer trip requests on TRIP's map using THREADS threads, reading
+     *  them from the local TCP port PORT, if it is non-null, and otherwise
+     *  from the standard input. */
+    private static void serve(Trip trip, int threads, String port) {
+        TripServer server = new TripServer(trip, threads);
+        try {
+            if (port == null) {
+                server.serve(System.in, System.out);
+            } else {
+                server.serve(count(port, "port"));
+            }
+        } catch (IOException excp) {
+            error("%s", excp.getMessage());
+        } finally {
+            server.shutdown();
+        }
+    }
+
 
     /** Set System.in to read from INFILE, if non-null; otherwise, leaves
      *  System.in unchanged.  Set System.out to go to OUTFILE, if non-null;
@@ -70,6 +118,21 @@ public final class Main {
     }
 
 
+    /** Returns the number of WHAT (landmarks, threads, ...) denoted by
+     *  ARG, which must be a positive integer. */
+    private static int count(String arg, String what) {
+        try {
+            int k = Integer.parseInt(arg);
+            if (k > 0) {
+                return k;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to report the error. */
+        }
+        error("bad %s count: %s", what, arg);
+        return 0;
+    }
+
     /** Throw an exception containing a message constructed from FORMAT
      *  and ARGS, as for String.format. */
     static void error(String format, Object... args) {
@@ -79,7 +142,11 @@ public final class Main {
     /** Print a brief usage message and exit program abnormally. */
     private static void usage() {
         System.err.printf("Usage: java trip.Main [ -m MAPFILE ] [ -o OUTFILE ]"
-                          + " [ REQUESTFILE ]%n");
+                          + " [ -c ] [ -l K ] [ REQUESTFILE ]%n"
+                          + "       java trip.Main [ -m MAPFILE ] "
+                          + "[ -o OUTFILE ] [ -c ] [ -l K ] [ -r SIZE ]%n"
+                          + "                      [ -t N ] "
+                          + "( -d | -p PORT )%n");
         System.exit(1);
     }
 
@@ -0,0 +1,425 @@
+package trip;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static trip.Main.error;
+
+/** The contents of a map file: its locations, each with a name and
+ *  coordinates, and its roads, each joining two locations and having a
+ *  name, a length, and a direction.  These are held as columns (all the
+ *  x coordinates, all the road lengths, and so on) rather than as
+ *  objects, and road names are pooled, so that each distinct name is
+ *  stored just once.
+ *
+ *  A map file is either text, with one entry per location or road as
+ *  described in the project specification, or the equivalent binary form
+ *  produced by write.  A binary map is memory-mapped when read, so that
+ *  its columns are used straight from the file, without parsing or
+ *  copying.  It consists of
+ *      int MAGIC, int L, int R, int N,
+ *      double x[L], double y[L], double length[R],
+ *      int from[R], int to[R], int name[R], byte direction[R],
+ *      L location names, N road names,
+ *  where L, R, and N are the numbers of locations, roads, and distinct
+ *  road names; locations and road names are numbered from 0 in order of
+ *  first appearance; directions are Direction ordinals; and each name is
+ *  an int byte count followed by that many bytes of UTF-8.  Numbers are
+ *  big-endian.
+ *
+ *  Run as a program, converts a map to binary:
+ *      java trip.MapFile MAP BINARYMAP
+ *  @author Yuan Xie.
+ */
+class MapFile {
+
+    /** Convert the map file named ARGS[0] to the binary map ARGS[1]. */
+    public static void main(String... args) {
+        if (args.length != 2) {
+            System.err.printf("Usage: java trip.MapFile MAPFILE "
+                              + "BINARYMAPFILE%n");
+            System.exit(1);
+        }
+        try {
+            read(args[0]).write(args[1]);
+        } catch (IllegalArgumentException excp) {
+            System.err.printf("trip: %s%n", excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Returns the contents of the map file named NAME, which may be text
+     *  or binary. */
+    static MapFile read(String name) {
+        if (isBinary(name)) {
+            return readBinary(name);
+        } else {
+            return readText(name);
+        }
+    }
+
+    /** Write me to the file named NAME in binary form. */
+    void write(String name) {
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(name)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(_locationCount);
+            out.writeInt(_roadCount);
+            out.writeInt(_roadNames.length);
+            for (int i = 0; i < _locationCount; i += 1) {
+                out.writeDouble(_x.get(i));
+            }
+            for (int i = 0; i < _locationCount; i += 1) {
+                out.writeDouble(_y.get(i));
+            }
+            for (int r = 0; r < _roadCount; r += 1) {
+                out.writeDouble(_length.get(r));
+            }
+            for (IntBuffer column : Arrays.asList(_from, _to, _roadName)) {
+                for (int r = 0; r < _roadCount; r += 1) {
+                    out.writeInt(column.get(r));
+                }
+            }
+            for (int r = 0; r < _roadCount; r += 1) {
+                out.writeByte(_direction.get(r));
+            }
+            for (String[] names
+                     : Arrays.asList(_locationNames, _roadNames)) {
+                for (String s : names) {
+                    byte[] bytes = s.getBytes(UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException excp) {
+            error("could not write %s: %s", name, excp.getMessage());
+        }
+    }
+
+    /** Returns the number of locations. */
+    int locationCount() {
+        return _locationCount;
+    }
+
+    /** Returns the name of location #I. */
+    String locationName(int i) {
+        return _locationNames[i];
+    }
+
+    /** Returns the x coordinate of location #I. */
+    double x(int i) {
+        return _x.get(i);
+    }
+
+    /** Returns the y coordinate of location #I. */
+    double y(int i) {
+        return _y.get(i);
+    }
+
+    /** Returns the number of roads. */
+    int roadCount() {
+        return _roadCount;
+    }
+
+    /** Returns the number of the location at which road #R starts. */
+    int from(int r) {
+        return _from.get(r);
+    }
+
+    /** Returns the number of the location at which road #R ends. */
+    int to(int r) {
+        return _to.get(r);
+    }
+
+    /** Returns the name of road #R.  Roads with the same name share one
+     *  String. */
+    String roadName(int r) {
+        return _roadNames[_roadName.get(r)];
+    }
+
+    /** Returns the length of road #R. */
+    double length(int r) {
+        return _length.get(r);
+    }
+
+    /** Returns the direction of road #R from its start to its end. */
+    Direction direction(int r) {
+        return DIRECTIONS[_direction.get(r)];
+    }
+
+    /** Returns true iff the file named NAME is a binary map. */
+    private static boolean isBinary(String name) {
+        try (DataInputStream inp =
+                 new DataInputStream(new FileInputStream(name))) {
+            return inp.readInt() == MAGIC;
+        } catch (IOException excp) {
+            return false;
+        }
+    }
+
+    /** Returns the contents of the text map file named NAME. */
+    private static MapFile readText(String name) {
+        TextReader map = new TextReader();
+        int n;
+        n = 0;
+        try {
+            Scanner inp = new Scanner(new File(name));
+            while (inp.hasNext()) {
+                n += 1;
+                switch (inp.next()) {
+                case "L":
+                    map.addLocation(inp.next(), inp.nextDouble(),
+                                    inp.nextDouble());
+                    break;
+                case "R":
+                    map.addRoad(inp.next(), inp.next(), inp.nextDouble(),
+                                Direction.parse(inp.next()), inp.next());
+                    break;
+                default:
+                    error("map entry #%d: unknown type", n);
+                    break;
+                }
+            }
+        } catch (FileNotFoundException excp) {
+            error(excp.getMessage());
+        } catch (InputMismatchException excp) {
+            error("bad entry #%d", n);
+        } catch (NoSuchElementException excp) {
+            error("entry incomplete at end of file");
+        }
+        return map.finish();
+    }
+
+    /** Returns the contents of the binary map file named NAME. */
+    private static MapFile readBinary(String name) {
+        MapFile map = new MapFile();
+        try (FileChannel channel = new FileInputStream(name).getChannel()) {
+            ByteBuffer header = channel.map(READ_ONLY, 0, HEADER_SIZE);
+            header.getInt();
+            int nl = header.getInt(), nr = header.getInt(),
+                nn = header.getInt();
+            if (nl < 0 || nr < 0 || nn < 0
+                || HEADER_SIZE + 16L * nl + 21L * nr > channel.size()) {
+                error("bad binary map file: %s", name);
+            }
+            map._locationCount = nl;
+            map._roadCount = nr;
+            long pos = HEADER_SIZE;
+            map._x = channel.map(READ_ONLY, pos, 8L * nl).asDoubleBuffer();
+            pos += 8L * nl;
+            map._y = channel.map(READ_ONLY, pos, 8L * nl).asDoubleBuffer();
+            pos += 8L * nl;
+            map._length =
+                channel.map(READ_ONLY, pos, 8L * nr).asDoubleBuffer();
+            pos += 8L * nr;
+            map._from = channel.map(READ_ONLY, pos, 4L * nr).asIntBuffer();
+            pos += 4L * nr;
+            map._to = channel.map(READ_ONLY, pos, 4L * nr).asIntBuffer();
+            pos += 4L * nr;
+            map._roadName =
+                channel.map(READ_ONLY, pos, 4L * nr).asIntBuffer();
+            pos += 4L * nr;
+            map._direction = channel.map(READ_ONLY, pos, nr);
+            pos += nr;
+            ByteBuffer names =
+                channel.map(READ_ONLY, pos, channel.size() - pos);
+            map._locationNames = readNames(names, nl, name);
+            map._roadNames = readNames(names, nn, name);
+        } catch (FileNotFoundException excp) {
+            error(excp.getMessage());
+        } catch (IOException | BufferUnderflowException excp) {
+            error("bad binary map file: %s", name);
+        }
+        for (int r = 0; r < map._roadCount; r += 1) {
+            if (!map.validRoad(r)) {
+                error("bad binary map file: %s", name);
+            }
+        }
+        return map;
+    }
+
+    /** Returns the next N names in BUF, which holds part of the binary
+     *  map file named NAME. */
+    private static String[] readNames(ByteBuffer buf, int n, String name) {
+        if (n > buf.remaining() / 4) {
+            error("bad binary map file: %s", name);
+        }
+        String[] result = new String[n];
+        byte[] bytes = new byte[0];
+        for (int i = 0; i < n; i += 1) {
+            int len = buf.getInt();
+            if (len < 0 || len > buf.remaining()) {
+                error("bad binary map file: %s", name);
+            }
+            if (len > bytes.length) {
+                bytes = new byte[Math.max(len, 2 * bytes.length)];
+            }
+            buf.get(bytes, 0, len);
+            result[i] = new String(bytes, 0, len, UTF_8);
+        }
+        return result;
+    }
+
+    /** Returns true iff the locations, name, and direction of road #R are
+     *  in range. */
+    private boolean validRoad(int r) {
+        return inRange(_from.get(r), _locationCount)
+            && inRange(_to.get(r), _locationCount)
+            && inRange(_roadName.get(r), _roadNames.length)
+            && inRange(_direction.get(r), DIRECTIONS.length);
+    }
+
+    /** Returns true iff 0 <= K < N. */
+    private static boolean inRange(int k, int n) {
+        return k >= 0 && k < n;
+    }
+
+    /** Collects the columns of a MapFile from a text map, checking entries
+     *  as they are added. */
+    private static class TextReader {
+
+        /** Add a location named NAME at (X, Y). */
+        void addLocation(String name, double x, double y) {
+            if (_locations.containsKey(name)) {
+                error("multiple entries for %s", name);
+            }
+            int i = _names.size();
+            _locations.put(name, i);
+            _names.add(name);
+            if (i == _x.length) {
+                _x = Arrays.copyOf(_x, 2 * i);
+                _y = Arrays.copyOf(_y, 2 * i);
+            }
+            _x[i] = x;
+            _y[i] = y;
+        }
+
+        /** Add a road named NAME from the location named FROM to the
+         *  location named TO, running in direction DIR, and LENGTH miles
+         *  long. */
+        void addRoad(String from, String name, double length,
+                     Direction dir, String to) {
+            Integer i0 = _locations.get(from),
+                i1 = _locations.get(to);
+
+            if (i0 == null) {
+                error("location %s not defined", from);
+            } else if (i1 == null) {
+                error("location %s not defined", to);
+            }
+            if (length < 0) {
+                error("Road %s given negative length.", length);
+            }
+            Integer id = _roadNameIds.get(name);
+            if (id == null) {
+                id = _roadNames.size();
+                _roadNameIds.put(name, id);
+                _roadNames.add(name);
+            }
+
+            int r = _roadCount;
+            if (r == _length.length) {
+                _length = Arrays.copyOf(_length, 2 * r);
+                _from = Arrays.copyOf(_from, 2 * r);
+                _to = Arrays.copyOf(_to, 2 * r);
+                _roadName = Arrays.copyOf(_roadName, 2 * r);
+                _direction = Arrays.copyOf(_direction, 2 * r);
+            }
+            _length[r] = length;
+            _from[r] = i0;
+            _to[r] = i1;
+            _roadName[r] = id;
+            _direction[r] = (byte) dir.ordinal();
+            _roadCount += 1;
+        }
+
+        /** Returns the MapFile holding the entries added so far. */
+        MapFile finish() {
+            MapFile map = new MapFile();
+            map._locationCount = _names.size();
+            map._locationNames = _names.toArray(new String[0]);
+            map._x = DoubleBuffer.wrap(_x);
+            map._y = DoubleBuffer.wrap(_y);
+            map._roadCount = _roadCount;
+            map._roadNames = _roadNames.toArray(new String[0]);
+            map._length = DoubleBuffer.wrap(_length);
+            map._from = IntBuffer.wrap(_from);
+            map._to = IntBuffer.wrap(_to);
+            map._roadName = IntBuffer.wrap(_roadName);
+            map._direction = ByteBuffer.wrap(_direction);
+            return map;
+        }
+
+        /** Location names, in order. */
+        private ArrayList<String> _names = new ArrayList<>();
+        /** Maps location names to location numbers. */
+        private HashMap<String, Integer> _locations = new HashMap<>();
+        /** Location coordinates. */
+        private double[] _x = new double[INITIAL_SIZE],
+            _y = new double[INITIAL_SIZE];
+        /** Distinct road names, in order of first appearance. */
+        private ArrayList<String> _roadNames = new ArrayList<>();
+        /** Maps road names to their numbers. */
+        private HashMap<String, Integer> _roadNameIds = new HashMap<>();
+        /** Number of roads. */
+        private int _roadCount;
+        /** Road lengths. */
+        private double[] _length = new double[INITIAL_SIZE];
+        /** Road ends, as location numbers. */
+        private int[] _from = new int[INITIAL_SIZE],
+            _to = new int[INITIAL_SIZE];
+        /** Road name numbers. */
+        private int[] _roadName = new int[INITIAL_SIZE];
+        /** Road direction ordinals. */
+        private byte[] _direction = new byte[INITIAL_SIZE];
+    }
+
+    /** Identifies binary map files (and their format version). */
+    private static final int MAGIC = 0x54524d01;
+    /** Size of a binary map's header, in bytes. */
+    private static final int HEADER_SIZE = 16;
+    /** Initial size of the columns of a TextReader. */
+    private static final int INITIAL_SIZE = 64;
+    /** The Directions, indexed by ordinal. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Number of locations. */
+    private int _locationCount;
+    /** Location names. */
+    private String[] _locationNames;
+    /** Location coordinates. */
+    private DoubleBuffer _x, _y;
+    /** Number of roads. */
+    private int _roadCount;
+    /** Distinct road names. */
+    private String[] _roadNames;
+    /** Road lengths. */
+    private DoubleBuffer _length;
+    /** Road ends, as location numbers. */
+    private IntBuffer _from, _to;
+    /** Road names, as indices into _roadNames. */
+    private IntBuffer _roadName;
+    /** Road directions, as Direction ordinals. */
+    private ByteBuffer _direction;
+}
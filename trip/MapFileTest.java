@@ -0,0 +1,170 @@
+package trip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for the MapFile class.
+ *  @author Yuan Xie.
+ */
+public class MapFileTest {
+
+    @Test
+    public void testText() throws IOException {
+        MapFile map = MapFile.read(textFile(MAP).getPath());
+        checkMap(map);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        MapFile text = MapFile.read(textFile(MAP).getPath());
+        File binary = tempFile(".bin");
+        text.write(binary.getPath());
+        MapFile map = MapFile.read(binary.getPath());
+        checkMap(map);
+        assertEquals(text.locationCount(), map.locationCount());
+        for (int i = 0; i < map.locationCount(); i += 1) {
+            assertEquals(text.locationName(i), map.locationName(i));
+            assertEquals(text.x(i), map.x(i), 0.0);
+            assertEquals(text.y(i), map.y(i), 0.0);
+        }
+        assertEquals(text.roadCount(), map.roadCount());
+        for (int r = 0; r < map.roadCount(); r += 1) {
+            assertEquals(text.from(r), map.from(r));
+            assertEquals(text.to(r), map.to(r));
+            assertEquals(text.roadName(r), map.roadName(r));
+            assertEquals(text.length(r), map.length(r), 0.0);
+            assertEquals(text.direction(r), map.direction(r));
+        }
+    }
+
+    @Test
+    public void testBadText() throws IOException {
+        String[] maps = {
+            "L A 0 0\nX B 1 1\n",
+            "L A 0 0\nL A 1 1\n",
+            "L A 0 0\nR A Main 1 NS B\n",
+            "L A 0 0\nL B 1 1\nR A Main -1 NS B\n",
+            "L A 0 0\nL B 1 1\nR A Main 1 UP B\n",
+            "L A 0 zero\n",
+            "L A 0 0\nL B 1 1\nR A Main 1 NS\n",
+        };
+        for (String text : maps) {
+            try {
+                MapFile.read(textFile(text).getPath());
+                fail("accepted bad map: " + text);
+            } catch (IllegalArgumentException excp) {
+                /* Expected. */
+            }
+        }
+    }
+
+    @Test
+    public void testBadBinary() throws IOException {
+        File binary = tempFile(".bin");
+        MapFile.read(textFile(MAP).getPath()).write(binary.getPath());
+        long names = HEADER_SIZE + 16L * LOCATIONS + 21L * ROADS;
+        long[][] changes = {
+            { 4, -1 },
+            { 8, Integer.MAX_VALUE },
+            { 12, Integer.MAX_VALUE },
+            { names, -1 },
+            { names, Integer.MAX_VALUE },
+            { HEADER_SIZE + 16L * LOCATIONS + 8L * ROADS, LOCATIONS },
+            { HEADER_SIZE + 16L * LOCATIONS + 16L * ROADS, -1 },
+        };
+        for (long[] change : changes) {
+            File bad = tempFile(".bin");
+            copy(binary, bad);
+            try (RandomAccessFile file = new RandomAccessFile(bad, "rw")) {
+                file.seek(change[0]);
+                file.writeInt((int) change[1]);
+            }
+            checkRejected(bad);
+        }
+        for (long size : new long[] { HEADER_SIZE, names, names + 3,
+                                      binary.length() - 1 }) {
+            File bad = tempFile(".bin");
+            copy(binary, bad);
+            try (RandomAccessFile file = new RandomAccessFile(bad, "rw")) {
+                file.setLength(size);
+            }
+            checkRejected(bad);
+        }
+    }
+
+    /** Check that MAP holds the contents of MAP. */
+    private static void checkMap(MapFile map) {
+        assertEquals(LOCATIONS, map.locationCount());
+        assertEquals("A", map.locationName(0));
+        assertEquals("B", map.locationName(1));
+        assertEquals("C", map.locationName(2));
+        assertEquals(1.5, map.x(1), 0.0);
+        assertEquals(-2.25, map.y(1), 0.0);
+        assertEquals(3.0, map.x(2), 0.0);
+        assertEquals(ROADS, map.roadCount());
+        int[] from = { 0, 1, 2, 0 }, to = { 1, 2, 0, 2 };
+        String[] names = { "Main", "Ocean", "Main", "Bay" };
+        double[] lengths = { 2.5, 0, 7, 1e3 };
+        Direction[] directions = {
+            Direction.WE, Direction.NS, Direction.EW, Direction.SN
+        };
+        for (int r = 0; r < ROADS; r += 1) {
+            assertEquals(from[r], map.from(r));
+            assertEquals(to[r], map.to(r));
+            assertEquals(names[r], map.roadName(r));
+            assertEquals(lengths[r], map.length(r), 0.0);
+            assertEquals(directions[r], map.direction(r));
+        }
+        assertSame(map.roadName(0), map.roadName(2));
+    }
+
+    /** Check that reading the binary map FILE is reported as an error. */
+    private static void checkRejected(File file) {
+        try {
+            MapFile.read(file.getPath());
+            fail("accepted bad binary map");
+        } catch (IllegalArgumentException excp) {
+            assertTrue(excp.getMessage().startsWith("bad binary map file"));
+        }
+    }
+
+    /** Returns a new temporary file, deleted on exit, whose name ends in
+     *  SUFFIX. */
+    private static File tempFile(String suffix) throws IOException {
+        File file = File.createTempFile("trip", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /** Returns a new temporary file containing TEXT. */
+    private static File textFile(String text) throws IOException {
+        File file = tempFile(".map");
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print(text);
+        }
+        return file;
+    }
+
+    /** Copy the contents of FROM to TO. */
+    private static void copy(File from, File to) throws IOException {
+        Files.copy(from.toPath(), to.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** A map with three locations and four roads, two sharing a name. */
+    private static final String MAP =
+        "L A 0 0\nL B 1.5 -2.25\nR A Main 2.5 WE B\nL C 3 4\n"
+        + "R B Ocean 0 NS C\nR C Main 7 EW A\nR A Bay 1e3 SN C\n";
+    /** Numbers of locations and roads in MAP. */
+    private static final int LOCATIONS = 3, ROADS = 4;
+    /** Size of a binary map's header, in bytes. */
+    private static final int HEADER_SIZE = 16;
+}
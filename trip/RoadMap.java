@@ -0,0 +1,187 @@
+package trip;
+
+import graph.DirectedGraph;
+import graph.LabeledGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static trip.Main.error;
+
+/** A labeled directed graph of Locations whose edges are labeled by
+ *  Roads.  The Roads are not stored as objects.  Instead, their lengths,
+ *  directions, and names are kept in arrays indexed by edge id (the names
+ *  as numbers into a pool of distinct names), which double in size as
+ *  edges are added and shrink when the map is compacted.  Thus
+ *  length(U, V), which shortest-path searches call for each edge they
+ *  relax, costs one edge-id lookup and an array read, while
+ *  getLabel(U, V) assembles a Road from the arrays when a whole label is
+ *  wanted.
+ *  @author Yuan Xie.
+ */
+class RoadMap extends LabeledGraph<Location, Road> {
+
+    /** An empty RoadMap. */
+    RoadMap() {
+        super(new DirectedGraph());
+        _length = new double[INITIAL_CAPACITY];
+        _direction = new byte[INITIAL_CAPACITY];
+        _name = new int[INITIAL_CAPACITY];
+        Arrays.fill(_length, Double.POSITIVE_INFINITY);
+        Arrays.fill(_name, NO_ROAD);
+    }
+
+    /** Add an edge from U to V labeled with a road named NAME, running in
+     *  direction DIR and LENGTH miles long, or relabel the edge if it is
+     *  already present.  Returns the edge's id. */
+    int add(int u, int v, String name, Direction dir, double length) {
+        if (length < 0) {
+            error("Road %s given negative length.", length);
+        }
+        int e = add(u, v);
+        ensureCapacity(e);
+        _length[e] = length;
+        _direction[e] = (byte) dir.ordinal();
+        _name[e] = nameId(name);
+        return e;
+    }
+
+    @Override
+    public int add(int u, int v, Road lab) {
+        if (lab == null) {
+            int e = add(u, v);
+            clearLabel(e);
+            return e;
+        }
+        return add(u, v, lab.toString(), lab.direction(), lab.length());
+    }
+
+    @Override
+    public void setLabel(int u, int v, Road lab) {
+        if (edgeId(u, v) == 0) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        add(u, v, lab);
+    }
+
+    @Override
+    public Road getLabel(int u, int v) {
+        int e = edgeId(u, v);
+        if (e == 0) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        if (e >= _name.length || _name[e] == NO_ROAD) {
+            return null;
+        }
+        return new Road(_names.get(_name[e]), DIRECTIONS[_direction[e]],
+                        _length[e]);
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        int e = edgeId(u, v);
+        super.remove(u, v);
+        clearLabel(e);
+    }
+
+    @Override
+    public void remove(int v) {
+        if (contains(v)) {
+            for (int w : successors(v)) {
+                clearLabel(edgeId(v, w));
+            }
+            for (int u : predecessors(v)) {
+                clearLabel(edgeId(u, v));
+            }
+        }
+        super.remove(v);
+    }
+
+    @Override
+    public int[] compact() {
+        int[] ids = super.compact();
+        if (ids != null) {
+            int size = Math.max(edgeSize() + 1, INITIAL_CAPACITY);
+            double[] length = new double[size];
+            byte[] direction = new byte[size];
+            int[] name = new int[size];
+            Arrays.fill(length, Double.POSITIVE_INFINITY);
+            Arrays.fill(name, NO_ROAD);
+            int n = Math.min(ids.length, _length.length);
+            for (int e = 1; e < n; e += 1) {
+                int e1 = ids[e];
+                if (e1 != 0) {
+                    length[e1] = _length[e];
+                    direction[e1] = _direction[e];
+                    name[e1] = _name[e];
+                }
+            }
+            _length = length;
+            _direction = direction;
+            _name = name;
+        }
+        return ids;
+    }
+
+    /** Returns the length of the road from U to V, or infinity if there
+     *  is no such road. */
+    double length(int u, int v) {
+        int e = edgeId(u, v);
+        return e < _length.length ? _length[e] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Returns the number of the road name NAME, adding it to the pool if
+     *  it is new. */
+    private int nameId(String name) {
+        Integer id = _nameIds.get(name);
+        if (id == null) {
+            id = _names.size();
+            _nameIds.put(name, id);
+            _names.add(name);
+        }
+        return id;
+    }
+
+    /** Remove the road, if any, labeling the edge whose id is E. */
+    private void clearLabel(int e) {
+        if (e > 0 && e < _name.length) {
+            _length[e] = Double.POSITIVE_INFINITY;
+            _name[e] = NO_ROAD;
+        }
+    }
+
+    /** Make room for the label of the edge whose id is E. */
+    private void ensureCapacity(int e) {
+        if (e >= _length.length) {
+            int n = _length.length;
+            int size = Math.max(e + 1, 2 * n);
+            _length = Arrays.copyOf(_length, size);
+            _direction = Arrays.copyOf(_direction, size);
+            _name = Arrays.copyOf(_name, size);
+            Arrays.fill(_length, n, size, Double.POSITIVE_INFINITY);
+            Arrays.fill(_name, n, size, NO_ROAD);
+        }
+    }
+
+    /** Initial size of the label arrays. */
+    private static final int INITIAL_CAPACITY = 64;
+    /** Name number of an unlabeled edge. */
+    private static final int NO_ROAD = -1;
+    /** The Directions, indexed by ordinal. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** _length[E] is the length of the road on edge E, or infinity if
+     *  there is none.  In particular, _length[0] (the id of no edge) is
+     *  infinite. */
+    private double[] _length;
+    /** _direction[E] is the ordinal of the direction of edge E's road. */
+    private byte[] _direction;
+    /** _name[E] is the number of the name of edge E's road in _names, or
+     *  NO_ROAD. */
+    private int[] _name;
+    /** The distinct road names. */
+    private final ArrayList<String> _names = new ArrayList<>();
+    /** Maps road names to their numbers. */
+    private final HashMap<String, Integer> _nameIds = new HashMap<>();
+}
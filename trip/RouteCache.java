@@ -0,0 +1,129 @@
+package trip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/** A bounded cache of routes between pairs of map vertices.  Each route
+ *  is the sequence of vertices along a shortest path and its total length.
+ *  The size of the cache is the total number of vertices on its routes,
+ *  and when that would exceed its capacity, the least recently used routes
+ *  are evicted.  The cache keeps counts of hits and misses.  All methods
+ *  are synchronized, so that the cache may be shared by several threads.
+ *  @author Yuan Xie.
+ */
+class RouteCache {
+
+    /** A cached route. */
+    static class Route {
+        /** A route along the vertices PATH, LENGTH miles long. */
+        Route(List<Integer> path, double length) {
+            _path = Collections.unmodifiableList(new ArrayList<>(path));
+            _length = length;
+        }
+
+        /** Returns the vertices along me, from start to end. */
+        List<Integer> path() {
+            return _path;
+        }
+
+        /** Returns my length. */
+        double length() {
+            return _length;
+        }
+
+        /** The vertices along me. */
+        private final List<Integer> _path;
+        /** My length. */
+        private final double _length;
+    }
+
+    /** An empty cache holding routes with up to CAPACITY vertices in
+     *  all. */
+    RouteCache(int capacity) {
+        _capacity = capacity;
+    }
+
+    /** Returns the cached route from vertex FROM to vertex TO, or null if
+     *  there is none. */
+    synchronized Route get(int from, int to) {
+        Route route = _routes.get(key(from, to));
+        if (route == null) {
+            _misses += 1;
+        } else {
+            _hits += 1;
+        }
+        return route;
+    }
+
+    /** Cache a route from vertex FROM to vertex TO along the vertices PATH
+     *  and LENGTH miles long, evicting other routes as needed.  Routes
+     *  too long to fit are not cached. */
+    synchronized void put(int from, int to, List<Integer> path,
+                          double length) {
+        if (path.size() > _capacity) {
+            return;
+        }
+        Route old = _routes.put(key(from, to), new Route(path, length));
+        if (old != null) {
+            _size -= old.path().size();
+        }
+        _size += path.size();
+        Iterator<Route> eldest = _routes.values().iterator();
+        while (_size > _capacity) {
+            _size -= eldest.next().path().size();
+            eldest.remove();
+            _evictions += 1;
+        }
+    }
+
+    /** Discard all routes, as when the map changes. */
+    synchronized void clear() {
+        _routes.clear();
+        _size = 0;
+    }
+
+    /** Returns the number of routes cached. */
+    synchronized int routes() {
+        return _routes.size();
+    }
+
+    /** Returns the number of calls to get that found a route. */
+    synchronized long hits() {
+        return _hits;
+    }
+
+    /** Returns the number of calls to get that found no route. */
+    synchronized long misses() {
+        return _misses;
+    }
+
+    /** Returns the number of routes evicted to make room for others. */
+    synchronized long evictions() {
+        return _evictions;
+    }
+
+    /** Returns the fraction of calls to get that found a route, or 0 if
+     *  there have been none. */
+    synchronized double hitRate() {
+        long lookups = _hits + _misses;
+        return lookups == 0 ? 0.0 : (double) _hits / lookups;
+    }
+
+    /** Returns the key for routes from FROM to TO. */
+    private static long key(int from, int to) {
+        return ((long) from << Integer.SIZE) | (to & 0xffffffffL);
+    }
+
+    /** Maximum total number of vertices on the cached routes. */
+    private final int _capacity;
+    /** The cached routes, least recently used first. */
+    private final LinkedHashMap<Long, Route> _routes =
+        new LinkedHashMap<>(16, 0.75f, true);
+    /** Total number of vertices on the cached routes. */
+    private int _size;
+    /** Counts of hits, misses, and evictions. */
+    private long _hits, _misses, _evictions;
+}
@@ -0,0 +1,141 @@
+package trip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for the RouteCache class, and for its use by Trip.
+ *  @author Yuan Xie.
+ */
+public class RouteCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsed() {
+        RouteCache cache = new RouteCache(10);
+        cache.put(1, 2, path(1, 3), 2.0);
+        cache.put(2, 3, path(2, 3), 3.0);
+        cache.put(3, 4, path(3, 3), 4.0);
+        assertNotNull(cache.get(1, 2));
+        cache.put(4, 5, path(4, 3), 5.0);
+        assertEquals(1, cache.evictions());
+        assertEquals(3, cache.routes());
+        assertNull(cache.get(2, 3));
+        assertNotNull(cache.get(3, 4));
+        cache.put(5, 6, path(5, 3), 6.0);
+        assertEquals(2, cache.evictions());
+        assertNull(cache.get(1, 2));
+        assertNotNull(cache.get(3, 4));
+        assertNotNull(cache.get(4, 5));
+        assertNotNull(cache.get(5, 6));
+        assertNull(cache.get(2, 1));
+    }
+
+    @Test
+    public void testReplace() {
+        RouteCache cache = new RouteCache(10);
+        cache.put(1, 2, path(1, 4), 2.0);
+        cache.put(1, 2, path(1, 6), 3.0);
+        assertEquals(1, cache.routes());
+        assertEquals(path(1, 6), cache.get(1, 2).path());
+        assertEquals(3.0, cache.get(1, 2).length(), 0.0);
+        cache.put(2, 3, path(2, 4), 4.0);
+        assertEquals(0, cache.evictions());
+        assertEquals(2, cache.routes());
+        cache.put(1, 2, path(1, 2), 5.0);
+        cache.put(3, 4, path(3, 4), 6.0);
+        assertEquals(0, cache.evictions());
+        assertEquals(3, cache.routes());
+        cache.put(4, 5, path(4, 1), 7.0);
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get(2, 3));
+    }
+
+    @Test
+    public void testTooLong() {
+        RouteCache cache = new RouteCache(3);
+        cache.put(1, 2, path(1, 2), 1.0);
+        cache.put(2, 3, path(2, 4), 1.0);
+        assertEquals(1, cache.routes());
+        assertEquals(0, cache.evictions());
+        assertNull(cache.get(2, 3));
+    }
+
+    @Test
+    public void testCounters() {
+        RouteCache cache = new RouteCache(100);
+        assertEquals(0.0, cache.hitRate(), 0.0);
+        List<Integer> path = path(1, 5);
+        cache.put(1, 2, path, 4.0);
+        path.set(0, 99);
+        assertEquals(path(1, 5), cache.get(1, 2).path());
+        assertNull(cache.get(2, 1));
+        assertNull(cache.get(3, 4));
+        assertNotNull(cache.get(1, 2));
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(0.5, cache.hitRate(), 0.0);
+        cache.clear();
+        assertEquals(0, cache.routes());
+        assertNull(cache.get(1, 2));
+        assertEquals(2, cache.hits());
+        assertEquals(3, cache.misses());
+        assertEquals(0, cache.evictions());
+        cache.put(1, 2, path(1, 100), 4.0);
+        assertEquals(1, cache.routes());
+    }
+
+    @Test
+    public void testMapChanges() throws IOException {
+        File map = File.createTempFile("trip", ".map");
+        map.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(map)) {
+            out.printf("L A 0 0%nL B 1 0%nL C 2 0%n"
+                       + "R A Main 1 WE B%nR B Main 1 WE C%n");
+        }
+        Trip trip = new Trip();
+        trip.useRouteCache(100);
+        trip.readMap(map.getPath());
+        RouteCache cache = trip.routeCache();
+
+        plan(trip);
+        int v = trip.addLocation("D", 3, 0);
+        assertEquals(0, cache.routes());
+        plan(trip);
+        trip.addRoad(v, "Bay", 1, Direction.EW, v - 1);
+        assertEquals(0, cache.routes());
+        plan(trip);
+        trip.useHierarchy();
+        assertEquals(0, cache.routes());
+        plan(trip);
+        assertEquals(4, cache.misses());
+    }
+
+    /** Plan a trip from A to C on TRIP, checking that it is cached. */
+    private static void plan(Trip trip) {
+        PrintStream out = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        });
+        trip.makeTrip(Arrays.asList("A", "C"), out);
+        assertEquals(1, trip.routeCache().routes());
+    }
+
+    /** Returns a path of N vertices starting at vertex START. */
+    private static List<Integer> path(int start, int n) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int k = 0; k < n; k += 1) {
+            result.add(start + k);
+        }
+        return result;
+    }
+}
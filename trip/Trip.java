@@ -1,17 +1,14 @@
 package trip;
 
-import graph.DirectedGraph;
-import graph.LabeledGraph;
+import graph.ContractionHierarchy;
+import graph.Landmarks;
+import graph.SearchWorkspace;
 import graph.SimpleShortestPaths;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.PrintStream;
 
 import java.util.HashMap;
-import java.util.InputMismatchException;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
 
 import static trip.Main.error;
 
@@ -21,44 +18,35 @@ import static trip.Main.error;
  */
 class Trip {
 
-    /** Read map file named NAME into out map graph. */
+    /** Read map file named NAME into out map graph.  The file may be a
+     *  text map or a binary one (see MapFile). */
     void readMap(String name) {
-        int n;
-        n = 0;
-        try {
-            Scanner inp = new Scanner(new File(name));
-            while (inp.hasNext()) {
-                n += 1;
-                switch (inp.next()) {
-                case "L":
-                    addLocation(inp.next(), inp.nextDouble(), inp.nextDouble());
-                    break;
-                case "R":
-                    addRoad(inp.next(), inp.next(), inp.nextDouble(),
-                            Direction.parse(inp.next()), inp.next());
-                    break;
-                default:
-                    error("map entry #%d: unknown type", n);
-                    break;
-                }
-            }
-        } catch (FileNotFoundException excp) {
-            error(excp.getMessage());
-        } catch (InputMismatchException excp) {
-            error("bad entry #%d", n);
-        } catch (NoSuchElementException excp) {
-            error("entry incomplete at end of file");
+        MapFile map = MapFile.read(name);
+        int[] vertices = new int[map.locationCount()];
+        for (int i = 0; i < vertices.length; i += 1) {
+            vertices[i] = addLocation(map.locationName(i), map.x(i), map.y(i));
+        }
+        for (int r = 0; r < map.roadCount(); r += 1) {
+            addRoad(vertices[map.from(r)], map.roadName(r), map.length(r),
+                    map.direction(r), vertices[map.to(r)]);
         }
     }
 
     /** Produce a report on the standard output of a shortest journey from
      *  DESTS.get(0), then DESTS.get(1), .... */
     void makeTrip(List<String> dests) {
+        makeTrip(dests, System.out);
+    }
+
+    /** Produce a report on OUT of a shortest journey from DESTS.get(0),
+     *  then DESTS.get(1), ....  Several threads may plan trips at once,
+     *  provided the map does not change meanwhile. */
+    void makeTrip(List<String> dests, PrintStream out) {
         if (dests.size() < 2) {
             error("must have at least two locations for a trip");
         }
 
-        System.out.printf("From %s:%n%n", dests.get(0));
+        out.printf("From %s:%n%n", dests.get(0));
         int step;
 
         step = 1;
@@ -71,16 +59,79 @@ class Trip {
             } else if (to == null) {
                 error("No location named %s", dests.get(i));
             }
+            List<Integer> segment = findRoute(from, to);
+            if (segment == null) {
+                error("No route from %s to %s", dests.get(i - 1),
+                      dests.get(i));
+            }
+            step = reportSegment(step, from, segment, out);
+        }
+    }
+
+    /** Returns the vertices along a shortest route from vertex FROM to
+     *  vertex TO, or null if there is none.  Uses and updates the route
+     *  cache, if there is one. */
+    private List<Integer> findRoute(int from, int to) {
+        RouteCache routes = _routes;
+        if (routes != null) {
+            RouteCache.Route route = routes.get(from, to);
+            if (route != null) {
+                return route.path();
+            }
+        }
+        List<Integer> path;
+        double length;
+        if (_hierarchy != null) {
+            path = _hierarchy.path(from, to);
+            length = 0.0;
+            for (int k = 1; path != null && k < path.size(); k += 1) {
+                length += _map.getLabel(path.get(k - 1), path.get(k)).length();
+            }
+        } else {
             TripPlan plan = new TripPlan(from, to);
             plan.setPaths();
-            List<Integer> segment = plan.pathTo(to);
-            step = reportSegment(step, from, segment);
+            length = plan.getWeight(to);
+            path = length == Double.POSITIVE_INFINITY ? null : plan.pathTo(to);
         }
+        if (routes != null && path != null) {
+            routes.put(from, to, path, length);
+        }
+        return path;
+    }
+
+    /** Keep up to CAPACITY vertices' worth of recently planned routes, and
+     *  reuse them when the same legs are requested again.  Any later change
+     *  to the map empties the cache. */
+    void useRouteCache(int capacity) {
+        _routes = new RouteCache(capacity);
+    }
+
+    /** Returns the route cache, or null if there is none. */
+    RouteCache routeCache() {
+        return _routes;
+    }
+
+    /** Preprocess the current map into a contraction hierarchy, which
+     *  makeTrip then uses in place of A* search.  This pays off when many
+     *  trips are planned on the same map.  Any later change to the map
+     *  discards the hierarchy. */
+    void useHierarchy() {
+        _hierarchy = new RoadHierarchy();
+        _hierarchy.contract();
+        clearRoutes();
+    }
+
+    /** Compute distance bounds for the current map from K landmarks,
+     *  which makeTrip's searches then use alongside straight-line
+     *  distances.  Any later change to the map discards them. */
+    void useLandmarks(int k) {
+        _landmarks = new RoadLandmarks(k);
+        _landmarks.compute();
     }
 
-    /** Print out a written description of the location sequence SEGMENT,
-     *  starting at FROM, and numbering the lines of the description starting
-     *  at SEQ.  That is, FROM and each item in SEGMENT are the
+    /** Print out on OUT a written description of the location sequence
+     *  SEGMENT, starting at FROM, and numbering the lines of the description
+     *  starting at SEQ.  That is, FROM and each item in SEGMENT are the
      *  numbers of vertices representing locations.  Together, they
      *  specify the starting point and vertices along a path where
      *  each vertex is joined to the next by an edge.  Returns the
@@ -92,7 +143,8 @@ class Trip {
      *      5. Take I-80 west for 8.4 miles to San_Francisco.
      *  Adjacent roads with the same name and direction are combined.
      *  */
-    int reportSegment(int seq, int from, List<Integer> segment) {
+    int reportSegment(int seq, int from, List<Integer> segment,
+                      PrintStream out) {
         for (int i = 1; i < segment.size(); i += 1) {
             Road road = _map.getLabel(segment.get(i - 1), segment.get(i));
             String roadName = road.toString();
@@ -122,7 +174,7 @@ class Trip {
                 } else {
                     result += ".";
                 }
-                System.out.println(result);
+                out.println(result);
                 seq += 1;
             } else {
                 String to = _map.getLabel(segment.get(i)).toString();
@@ -130,54 +182,83 @@ class Trip {
                         + roadName + " " + roadDir.fullName() + " for "
                         + String.format("%.1f", roadLength) + " miles to "
                         + to + ".";
-                System.out.println(result);
+                out.println(result);
                 seq += 1;
             }
         }
         return seq;
     }
 
-    /** Add a new location named NAME at (X, Y). */
-    private void addLocation(String name, double x, double y) {
+    /** Add a new location named NAME at (X, Y), and return its vertex. */
+    int addLocation(String name, double x, double y) {
         if (_sites.containsKey(name)) {
             error("multiple entries for %s", name);
         }
         int v = _map.add(new Location(name, x, y));
         _sites.put(name, v);
+        _hierarchy = null;
+        _landmarks = null;
+        clearRoutes();
+        return v;
     }
 
-    /** Add a stretch of road named NAME from the Location named FROM
-     *  to the location named TO, running in direction DIR, and
-     *  LENGTH miles long.  Add a reverse segment going back from TO
-     *  to FROM. */
-    private void addRoad(String from, String name, double length,
-                         Direction dir, String to) {
-        Integer v0 = _sites.get(from),
-            v1 = _sites.get(to);
-
-        if (v0 == null) {
-            error("location %s not defined", from);
-        } else if (v1 == null) {
-            error("location %s not defined", to);
-        }
-
-        Road fromTo = new Road(name, dir, length);
-        Road toFrom = new Road(name, dir.reverse(), length);
-        _map.add(v0, v1, fromTo);
-        _map.add(v1, v0, toFrom);
+    /** Add a stretch of road named NAME from vertex V0 to vertex V1,
+     *  running in direction DIR, and LENGTH miles long.  Add a reverse
+     *  segment going back from V1 to V0. */
+    void addRoad(int v0, String name, double length,
+                 Direction dir, int v1) {
+        _map.add(v0, v1, name, dir, length);
+        _map.add(v1, v0, name, dir.reverse(), length);
+        _hierarchy = null;
+        _landmarks = null;
+        clearRoutes();
+    }
+
+    /** Empty the route cache, if there is one. */
+    private void clearRoutes() {
+        if (_routes != null) {
+            _routes.clear();
+        }
     }
 
     /** Represents the network of Locations and Roads. */
     private RoadMap _map = new RoadMap();
     /** Mapping of Location names to corresponding map vertices. */
     private HashMap<String, Integer> _sites = new HashMap<>();
+    /** Contraction hierarchy of _map, or null if not in use. */
+    private RoadHierarchy _hierarchy;
+    /** Landmark distance bounds for _map, or null if not in use. */
+    private RoadLandmarks _landmarks;
+    /** Cache of recently planned routes, or null if not in use. */
+    private RouteCache _routes;
+    /** Scratch storage shared by the searches of successive trip legs
+     *  planned on each thread. */
+    private final ThreadLocal<SearchWorkspace> _workspaces =
+        ThreadLocal.withInitial(SearchWorkspace::new);
 
-    /** A labeled directed graph of Locations whose edges are labeled by
-     *  Roads. */
-    private static class RoadMap extends LabeledGraph<Location, Road> {
-        /** An empty RoadMap. */
-        RoadMap() {
-            super(new DirectedGraph());
+    /** A contraction hierarchy of _map weighted by road length. */
+    private class RoadHierarchy extends ContractionHierarchy {
+        /** A hierarchy for the current contents of _map. */
+        RoadHierarchy() {
+            super(_map);
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            return _map.length(u, v);
+        }
+    }
+
+    /** Landmark bounds on distances in _map, weighted by road length. */
+    private class RoadLandmarks extends Landmarks {
+        /** Bounds for the current contents of _map from K landmarks. */
+        RoadLandmarks(int k) {
+            super(_map, k);
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            return _map.length(u, v);
         }
     }
 
@@ -185,29 +266,53 @@ class Trip {
     private class TripPlan extends SimpleShortestPaths {
         /** A plan for travel from START to DEST according to _map. */
         TripPlan(int start, int dest) {
-            super(_map, start, dest);
+            super(_map, start, dest, _workspaces.get());
+            _start = start;
+            _startLocation = _map.getLabel(start);
             _finalLocation = _map.getLabel(dest);
         }
 
         @Override
         protected double getWeight(int u, int v) {
-            if (!_map.contains(u, v)) {
-                return Double.POSITIVE_INFINITY;
-            } else {
-                Road uv = _map.getLabel(u, v);
-                return uv.length();
-            }
+            return _map.length(u, v);
         }
 
         @Override
         protected double estimatedDistance(int v) {
+            double result = 0.0;
+            if (_map.contains(v) && _map.getLabel(v) != null) {
+                Location l = _map.getLabel(v);
+                result = l.dist(_finalLocation);
+            }
+            if (_landmarks != null) {
+                result = Math.max(result,
+                                  _landmarks.lowerBound(v, getDest()));
+            }
+            return result;
+        }
+
+        @Override
+        protected boolean searchBidirectionally() {
+            return true;
+        }
+
+        @Override
+        protected double estimatedSourceDistance(int v) {
+            double result = 0.0;
             if (_map.contains(v) && _map.getLabel(v) != null) {
                 Location l = _map.getLabel(v);
-                return l.dist(_finalLocation);
+                result = l.dist(_startLocation);
+            }
+            if (_landmarks != null) {
+                result = Math.max(result, _landmarks.lowerBound(_start, v));
             }
-            return 0.0;
+            return result;
         }
 
+        /** The starting point. */
+        private final int _start;
+        /** Location of the starting point. */
+        private final Location _startLocation;
         /** Location of the destination. */
         private final Location _finalLocation;
 
@@ -0,0 +1,238 @@
+package trip;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+
+/** Answers a stream of trip requests against one loaded map, so that the
+ *  map is read (and the code warmed up) just once.  Each line of input is
+ *  a request: two or more location names separated by blanks or commas.
+ *  The response to a request is exactly what "java trip.Main" would print
+ *  for it, or if it fails, only a line "trip: MESSAGE", followed by a
+ *  line containing only ".".  Requests are planned concurrently on a
+ *  fixed pool of worker threads, but the responses on each stream come
+ *  out in the order of their requests.
+ *
+ *  The server also keeps counts of requests and failures, and a histogram
+ *  of request latencies (the time taken to plan a trip and format its
+ *  response), which it reports on the standard error at the end of each
+ *  input stream, along with the statistics of the Trip's route cache, if
+ *  it has one.
+ *  @author Yuan Xie.
+ */
+class TripServer {
+
+    /** A server for trips on the map in TRIP, planning up to THREADS of
+     *  them at once. */
+    TripServer(Trip trip, int threads) {
+        _trip = trip;
+        _pool = Executors.newFixedThreadPool(threads);
+        _started = System.nanoTime();
+    }
+
+    /** Answer the requests read from IN on OUT, returning once all have
+     *  been answered. */
+    void serve(InputStream in, OutputStream out) throws IOException {
+        new Session(new PrintStream(out, false)).run(in);
+        reportStatistics(System.err);
+    }
+
+    /** Accept connections on PORT of the loopback interface, and answer
+     *  the requests from each on its socket, until the program is
+     *  stopped. */
+    void serve(int port) throws IOException {
+        ExecutorService connections = Executors.newCachedThreadPool();
+        InetAddress local = InetAddress.getLoopbackAddress();
+        try (ServerSocket server = new ServerSocket(port, 0, local)) {
+            System.err.printf("trip: serving on port %d%n",
+                              server.getLocalPort());
+            while (true) {
+                Socket socket = server.accept();
+                connections.execute(() -> {
+                    try (Socket s = socket) {
+                        serve(s.getInputStream(), s.getOutputStream());
+                    } catch (IOException excp) {
+                        System.err.printf("trip: %s%n", excp.getMessage());
+                    }
+                });
+            }
+        }
+    }
+
+    /** Stop the worker threads, once they finish the requests they have
+     *  already been given. */
+    void shutdown() {
+        _pool.shutdown();
+    }
+
+    /** Returns the response to a request for a trip through DESTS. */
+    private String answer(List<String> dests) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false);
+        boolean ok;
+        try {
+            _trip.makeTrip(dests, out);
+            ok = true;
+        } catch (IllegalArgumentException excp) {
+            bytes.reset();
+            out.printf("trip: %s%n", excp.getMessage());
+            ok = false;
+        } catch (RuntimeException excp) {
+            bytes.reset();
+            out.printf("trip: internal error: %s%n", excp);
+            ok = false;
+        }
+        out.println(".");
+        out.flush();
+        record(System.nanoTime() - start, ok);
+        return bytes.toString();
+    }
+
+    /** Count a request that took NANOS nanoseconds, and succeeded iff
+     *  OK. */
+    private void record(long nanos, boolean ok) {
+        _requests.incrementAndGet();
+        if (!ok) {
+            _failures.incrementAndGet();
+        }
+        _totalNanos.addAndGet(nanos);
+        _maxNanos.accumulateAndGet(nanos, Math::max);
+        long micros = Math.max(1, nanos / 1000);
+        _latencies.incrementAndGet(63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /** Print the request counts and latencies so far on OUT. */
+    void reportStatistics(PrintStream out) {
+        long n = _requests.get();
+        double seconds = (System.nanoTime() - _started) * 1e-9;
+        out.printf("trip: %d requests (%d failed) in %.1f s, "
+                   + "%.1f requests/s%n",
+                   n, _failures.get(), seconds, n / seconds);
+        if (n > 0) {
+            out.printf("trip: latency mean %.3f ms, median < %.3f ms, "
+                       + "99%% < %.3f ms, max %.3f ms%n",
+                       _totalNanos.get() * 1e-6 / n, percentile(0.5, n),
+                       percentile(0.99, n), _maxNanos.get() * 1e-6);
+        }
+        RouteCache routes = _trip.routeCache();
+        if (routes != null) {
+            out.printf("trip: route cache %d hits, %d misses (%.1f%% hits), "
+                       + "%d routes, %d evicted%n",
+                       routes.hits(), routes.misses(),
+                       100.0 * routes.hitRate(), routes.routes(),
+                       routes.evictions());
+        }
+    }
+
+    /** Returns a bound, in milliseconds, on the latency of the fastest
+     *  fraction P of the first N requests, as given by the histogram. */
+    private double percentile(double p, long n) {
+        long count = 0;
+        for (int b = 0; b < _latencies.length(); b += 1) {
+            count += _latencies.get(b);
+            if (count >= p * n) {
+                return (1L << (b + 1)) * 1e-3;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /** The requests from one input stream, and their responses. */
+    private class Session {
+        /** A session whose responses go to OUT. */
+        Session(PrintStream out) {
+            _out = out;
+        }
+
+        /** Read requests from IN and hand them to the worker threads,
+         *  returning once all have been answered. */
+        void run(InputStream in) throws IOException {
+            BufferedReader requests =
+                new BufferedReader(new InputStreamReader(in));
+            String line;
+            while ((line = requests.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                List<String> dests = Arrays.asList(REQUESTSEP.split(line));
+                long seq;
+                synchronized (this) {
+                    seq = _submitted;
+                    _submitted += 1;
+                }
+                _pool.execute(() -> deliver(seq, answer(dests)));
+            }
+            synchronized (this) {
+                while (_written < _submitted) {
+                    try {
+                        wait();
+                    } catch (InterruptedException excp) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        /** Record RESPONSE as the answer to request #SEQ, and write out
+         *  any responses that are now next in order. */
+        private synchronized void deliver(long seq, String response) {
+            _pending.put(seq, response);
+            while (_pending.containsKey(_written)) {
+                _out.print(_pending.remove(_written));
+                _written += 1;
+            }
+            _out.flush();
+            notifyAll();
+        }
+
+        /** Where responses go. */
+        private final PrintStream _out;
+        /** Responses that are ready but wait for earlier ones, by request
+         *  number. */
+        private final HashMap<Long, String> _pending = new HashMap<>();
+        /** Number of requests read. */
+        private long _submitted;
+        /** Number of responses written. */
+        private long _written;
+    }
+
+    /** Separates the locations in a request. */
+    private static final Pattern REQUESTSEP = Pattern.compile("\\s*,\\s*|\\s+");
+
+    /** The map. */
+    private final Trip _trip;
+    /** The worker threads. */
+    private final ExecutorService _pool;
+    /** Time at which I was created, in nanoseconds. */
+    private final long _started;
+    /** Number of requests answered. */
+    private final AtomicLong _requests = new AtomicLong();
+    /** Number of requests that failed. */
+    private final AtomicLong _failures = new AtomicLong();
+    /** Total and largest latency of the requests, in nanoseconds. */
+    private final AtomicLong _totalNanos = new AtomicLong(),
+        _maxNanos = new AtomicLong();
+    /** _latencies[B] is the number of requests taking from 2**B up to
+     *  2**(B+1) microseconds. */
+    private final AtomicLongArray _latencies = new AtomicLongArray(64);
+}
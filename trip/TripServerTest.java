@@ -0,0 +1,123 @@
+package trip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for the TripServer class.
+ *  @author Yuan Xie.
+ */
+public class TripServerTest {
+
+    @Test
+    public void testOrder() throws IOException {
+        Trip trip = grid();
+        Random rand = new Random(61);
+        StringBuilder requests = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int k = 0; k < 300; k += 1) {
+            String[] dests = new String[2 + rand.nextInt(3)];
+            for (int i = 0; i < dests.length; i += 1) {
+                dests[i] = location(rand);
+            }
+            requests.append(String.join(k % 2 == 0 ? " " : ", ", dests))
+                .append("\n");
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(response, true);
+            trip.makeTrip(Arrays.asList(dests), out);
+            out.println(".");
+            expected.append(response);
+        }
+        assertEquals(expected.toString(),
+                     serve(trip, 4, requests.toString()));
+    }
+
+    @Test
+    public void testFailures() throws IOException {
+        Trip trip = grid();
+        String nl = System.lineSeparator();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        trip.makeTrip(Arrays.asList("P0_0", "P1_0"),
+                      new PrintStream(response, true));
+        String output = serve(trip, 2, "P0_0 Nowhere\n\nP0_0 P1_0\n"
+                              + "P0_0, P1_0, Nowhere\nP0_0\n");
+        assertEquals("trip: No location named Nowhere" + nl + "." + nl
+                     + response + "." + nl
+                     + "trip: No location named Nowhere" + nl + "." + nl
+                     + "trip: must have at least two locations for a trip"
+                     + nl + "." + nl,
+                     output);
+    }
+
+    /** Returns the output of a TripServer for TRIP with THREADS threads
+     *  given the requests REQUESTS. */
+    private static String serve(Trip trip, int threads, String requests)
+        throws IOException {
+        TripServer server = new TripServer(trip, threads);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream stderr = System.err;
+        System.setErr(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            server.serve(new ByteArrayInputStream(requests.getBytes()),
+                         output);
+        } finally {
+            System.setErr(stderr);
+            server.shutdown();
+        }
+        return output.toString();
+    }
+
+    /** Returns a Trip whose map is a SIDE x SIDE grid of locations,
+     *  P<X>_<Y>, each joined by roads to its neighbors. */
+    private static Trip grid() throws IOException {
+        File map = File.createTempFile("trip", ".map");
+        map.deleteOnExit();
+        Random rand = new Random(SIDE);
+        try (PrintWriter out = new PrintWriter(map)) {
+            for (int x = 0; x < SIDE; x += 1) {
+                for (int y = 0; y < SIDE; y += 1) {
+                    out.printf("L P%d_%d %d %d%n", x, y, x, y);
+                }
+            }
+            for (int x = 0; x < SIDE; x += 1) {
+                for (int y = 0; y < SIDE; y += 1) {
+                    if (x + 1 < SIDE) {
+                        out.printf("R P%d_%d Rd%d %d WE P%d_%d%n", x, y, y,
+                                   1 + rand.nextInt(3), x + 1, y);
+                    }
+                    if (y + 1 < SIDE) {
+                        out.printf("R P%d_%d Av%d %d SN P%d_%d%n", x, y, x,
+                                   1 + rand.nextInt(3), x, y + 1);
+                    }
+                }
+            }
+        }
+        Trip trip = new Trip();
+        trip.readMap(map.getPath());
+        return trip;
+    }
+
+    /** Returns the name of a random location on the grid, chosen using
+     *  RAND. */
+    private static String location(Random rand) {
+        return String.format("P%d_%d", rand.nextInt(SIDE),
+                             rand.nextInt(SIDE));
+    }
+
+    /** Number of locations along each side of the grid. */
+    private static final int SIDE = 12;
+}
@@ -9,12 +9,16 @@ import org.junit.Test;
 import ucb.junit.textui;
 import static org.junit.Assert.*;
 
-/** Unit tests for the trip package. */
+/** Unit tests for the trip package.  This class also dispatches the
+ *  other test classes, which are listed in the argument to runClasses. */
 public class UnitTest {
 
     /** Run all JUnit tests in the graph package. */
     public static void main(String[] ignored) {
-        System.exit(textui.runClasses(trip.UnitTest.class));
+        System.exit(textui.runClasses(trip.UnitTest.class,
+                                      trip.MapFileTest.class,
+                                      trip.TripServerTest.class,
+                                      trip.RouteCacheTest.class));
     }
 
     @Test